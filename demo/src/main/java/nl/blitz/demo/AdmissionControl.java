@@ -0,0 +1,180 @@
+package nl.blitz.demo;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * AdmissionControl keeps one expensive request from taking the node down or
+ * starving the others. Controllers estimate what a request will cost before
+ * building anything, from the closed-form size of the tree or listing it asks
+ * for, and admit it against two limits:
+ * <ul>
+ * <li>a budget per kind of work; a request above it is refused with 413,
+ *     since asking again will not make it cheaper</li>
+ * <li>a fixed number of requests doing such work at once, by default one per
+ *     core; further requests wait in a fair (first come, first served) queue
+ *     and are refused with 429 and a Retry-After header once the queue is
+ *     full or their wait runs out</li>
+ * </ul>
+ * Budgets and limits are set with the {@code codecompass.admission.*}
+ * properties, see application.properties.
+ */
+@Component
+public class AdmissionControl {
+
+    /**
+     * Kinds of work with their own budget. Costs are in the unit each
+     * generator counts cheaply: tree nodes for drawings, results for streams
+     * and search nodes for listings without a closed form (N-Queens).
+     */
+    public enum Work {
+        RENDER,
+        STREAM,
+        SEARCH
+    }
+
+    private final long renderBudget;
+    private final long streamBudget;
+    private final long searchBudget;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final Semaphore permits;
+
+    public AdmissionControl(@Value("${codecompass.admission.budget.render:10000000}") long renderBudget,
+                            @Value("${codecompass.admission.budget.stream:1000000000}") long streamBudget,
+                            @Value("${codecompass.admission.budget.search:2000000000}") long searchBudget,
+                            @Value("${codecompass.admission.max-concurrent:0}") int maxConcurrent,
+                            @Value("${codecompass.admission.max-queued:0}") int maxQueued,
+                            @Value("${codecompass.admission.queue-timeout-ms:10000}") long queueTimeoutMillis) {
+        int concurrent = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        this.renderBudget = renderBudget;
+        this.streamBudget = streamBudget;
+        this.searchBudget = searchBudget;
+        this.maxQueued = maxQueued > 0 ? maxQueued : 4 * concurrent;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.permits = new Semaphore(concurrent, true);
+    }
+
+    /**
+     * A granted slot. Closing it lets the next queued request in; a streamed
+     * response hands it to its body instead, which closes it once written.
+     * Controllers still close the permit in a try-with-resources block, so it
+     * is released if anything fails before the response is returned.
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean handedOff;
+
+        /**
+         * Wraps the body so the slot is held until it has been written. Call
+         * it last, on the request thread: the slot is also released when the
+         * asynchronous request completes, times out or fails, so a body that
+         * never runs (a rejected task, a client gone before it started) does
+         * not hold it for good.
+         */
+        public StreamingResponseBody handOff(StreamingResponseBody body) {
+            if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(this,
+                        new CallableProcessingInterceptor() {
+                            @Override
+                            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                                release();
+                            }
+                        });
+            }
+            handedOff = true;
+            return outputStream -> {
+                try {
+                    body.writeTo(outputStream);
+                } finally {
+                    release();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (!handedOff) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Checks the cost against the budget of its kind of work and waits for a
+     * slot to do it in.
+     * @throws ResponseStatusException 413 when the cost is over budget, 429
+     *         when no slot frees up in time
+     */
+    public Permit admit(Work work, long cost) {
+        long budget = budget(work);
+        if (cost > budget) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "This request would cost " + (cost == Long.MAX_VALUE ? "more than " + Long.MAX_VALUE : cost)
+                    + " " + work.name().toLowerCase() + " units, the limit is " + budget);
+        }
+        if (permits.getQueueLength() >= maxQueued) {
+            throw overloaded();
+        }
+        try {
+            if (!permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw overloaded();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        }
+        return new Permit();
+    }
+
+    public long budget(Work work) {
+        return switch (work) {
+            case RENDER -> renderBudget;
+            case STREAM -> streamBudget;
+            case SEARCH -> searchBudget;
+        };
+    }
+
+    private ResponseStatusException overloaded() {
+        return new Overloaded(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis)));
+    }
+
+    /**
+     * 429 telling the client to come back once a queued request could have finished.
+     */
+    private static class Overloaded extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        Overloaded(long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Too many expensive requests in progress, try again later");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
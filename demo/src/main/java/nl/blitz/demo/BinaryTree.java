@@ -1,5 +1,7 @@
 package nl.blitz.demo;
 
+import java.io.IOException;
+
 public class BinaryTree {
     private Node root;
 
@@ -57,60 +59,71 @@ public class BinaryTree {
 
     // Inorder Traversal (Left, Root, Right)
     public void inorderTraversal() {
-        System.out.print("Inorder Traversal: ");
-        inorderTraversalRecursive(root);
-        System.out.println();
+        TreePrinter.toConsole(printer -> {
+            printer.print("Inorder Traversal: ");
+            inorderTraversalRecursive(printer, root);
+            printer.newLine();
+        });
     }
 
-    private void inorderTraversalRecursive(Node node) {
+    private void inorderTraversalRecursive(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
-            inorderTraversalRecursive(node.left);
-            System.out.print(node.value + " ");
-            inorderTraversalRecursive(node.right);
+            inorderTraversalRecursive(printer, node.left);
+            printer.print(node.value).print(" ");
+            inorderTraversalRecursive(printer, node.right);
         }
     }
 
     // Preorder Traversal (Root, Left, Right)
     public void preorderTraversal() {
-        System.out.print("Preorder Traversal: ");
-        preorderTraversalRecursive(root);
-        System.out.println();
+        TreePrinter.toConsole(printer -> {
+            printer.print("Preorder Traversal: ");
+            preorderTraversalRecursive(printer, root);
+            printer.newLine();
+        });
     }
 
-    private void preorderTraversalRecursive(Node node) {
+    private void preorderTraversalRecursive(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
-            System.out.print(node.value + " ");
-            preorderTraversalRecursive(node.left);
-            preorderTraversalRecursive(node.right);
+            printer.print(node.value).print(" ");
+            preorderTraversalRecursive(printer, node.left);
+            preorderTraversalRecursive(printer, node.right);
         }
     }
 
     // Postorder Traversal (Left, Right, Root)
     public void postorderTraversal() {
-        System.out.print("Postorder Traversal: ");
-        postorderTraversalRecursive(root);
-        System.out.println();
+        TreePrinter.toConsole(printer -> {
+            printer.print("Postorder Traversal: ");
+            postorderTraversalRecursive(printer, root);
+            printer.newLine();
+        });
     }
 
-    private void postorderTraversalRecursive(Node node) {
+    private void postorderTraversalRecursive(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
-            postorderTraversalRecursive(node.left);
-            postorderTraversalRecursive(node.right);
-            System.out.print(node.value + " ");
+            postorderTraversalRecursive(printer, node.left);
+            postorderTraversalRecursive(printer, node.right);
+            printer.print(node.value).print(" ");
         }
     }
 
     // Tree Structure Printing
     public void printTree() {
-        System.out.println("\nTree Structure:");
-        printTreeRecursive(root, "", true);
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nTree Structure:");
+            printTreeRecursive(printer, root, true);
+        });
     }
 
-    private void printTreeRecursive(Node node, String prefix, boolean isLeft) {
+    private void printTreeRecursive(TreePrinter printer, Node node, boolean isLeft) throws IOException {
         if (node != null) {
-            System.out.println(prefix + (isLeft ? "+-- " : "\\-- ") + node.value);
-            printTreeRecursive(node.left, prefix + (isLeft ? "|   " : "    "), true);
-            printTreeRecursive(node.right, prefix + (isLeft ? "|   " : "    "), false);
+            // A left child is drawn with the open connector, so it counts as "not last"
+            printer.node(!isLeft, String.valueOf(node.value));
+            printer.indent(!isLeft);
+            printTreeRecursive(printer, node.left, true);
+            printTreeRecursive(printer, node.right, false);
+            printer.outdent();
         }
     }
-} 
\ No newline at end of file
+}
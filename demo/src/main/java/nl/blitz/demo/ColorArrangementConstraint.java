@@ -0,0 +1,157 @@
+package nl.blitz.demo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ColorArrangementConstraint describes which orders of a set of colors are
+ * allowed: pairs of colors that may not sit next to each other, colors pinned
+ * to a position, and colors that must come before others. Positions are the
+ * variables and colors the values, so the same rules drive both
+ * {@link ConstraintSearch} (for counting and listing large arrangements) and
+ * the pruned {@link ColorPermutationTree} (for drawing small ones).
+ */
+public class ColorArrangementConstraint implements PlacementConstraint {
+    private static final int NONE = -1;
+
+    private final List<String> colors;
+    private final long[] adjacencyBans;   // Per color: colors that may not be its neighbour
+    private final int[] pinnedColor;      // Per position: the color pinned there, or NONE
+    private final int[] pinnedPosition;   // Per color: the position it is pinned to, or NONE
+    private final long[] predecessors;    // Per color: colors that must come before it
+    private final long[] successors;      // Per color: colors that must come after it
+
+    public ColorArrangementConstraint(List<String> colors) {
+        if (colors.isEmpty() || colors.size() > 64) {
+            throw new IllegalArgumentException("Between 1 and 64 colors are supported: " + colors.size());
+        }
+        this.colors = List.copyOf(colors);
+        int n = colors.size();
+        this.adjacencyBans = new long[n];
+        this.pinnedColor = new int[n];
+        this.pinnedPosition = new int[n];
+        this.predecessors = new long[n];
+        this.successors = new long[n];
+        Arrays.fill(pinnedColor, NONE);
+        Arrays.fill(pinnedPosition, NONE);
+    }
+
+    /**
+     * Forbids two colors from occupying neighbouring positions.
+     */
+    public ColorArrangementConstraint banAdjacent(String first, String second) {
+        int a = indexOf(first);
+        int b = indexOf(second);
+        adjacencyBans[a] |= 1L << b;
+        adjacencyBans[b] |= 1L << a;
+        return this;
+    }
+
+    /**
+     * Fixes a color to a position (0-based).
+     */
+    public ColorArrangementConstraint pin(String color, int position) {
+        int c = indexOf(color);
+        if (position < 0 || position >= colors.size()) {
+            throw new IllegalArgumentException("Position out of range: " + position);
+        }
+        if (pinnedColor[position] != NONE && pinnedColor[position] != c) {
+            throw new IllegalArgumentException("Position " + position + " is already pinned to " + colors.get(pinnedColor[position]));
+        }
+        if (pinnedPosition[c] != NONE && pinnedPosition[c] != position) {
+            throw new IllegalArgumentException(color + " is already pinned to position " + pinnedPosition[c]);
+        }
+        pinnedColor[position] = c;
+        pinnedPosition[c] = position;
+        return this;
+    }
+
+    /**
+     * Requires one color to appear somewhere before another.
+     */
+    public ColorArrangementConstraint requireBefore(String first, String second) {
+        int a = indexOf(first);
+        int b = indexOf(second);
+        if (a == b) {
+            throw new IllegalArgumentException("A color cannot precede itself: " + first);
+        }
+        predecessors[b] |= 1L << a;
+        successors[a] |= 1L << b;
+        return this;
+    }
+
+    private int indexOf(String color) {
+        int index = colors.indexOf(color);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown color: " + color);
+        }
+        return index;
+    }
+
+    public List<String> getColors() {
+        return colors;
+    }
+
+    /**
+     * Checks whether a color may be placed next, given the colors already
+     * placed in positions 0..position-1. Used to prune while building a tree
+     * position by position.
+     * @param placed Bitmask of colors already placed
+     * @param previous Color at position - 1, or -1 at the first position
+     */
+    public boolean allows(long placed, int previous, int position, int color) {
+        if (pinnedColor[position] != NONE && pinnedColor[position] != color) {
+            return false;
+        }
+        if (pinnedPosition[color] != NONE && pinnedPosition[color] != position) {
+            return false;
+        }
+        if (previous != NONE && (adjacencyBans[color] & (1L << previous)) != 0) {
+            return false;
+        }
+        return (predecessors[color] & ~placed) == 0;
+    }
+
+    @Override
+    public int getVariableCount() {
+        return colors.size();
+    }
+
+    @Override
+    public int getValueCount() {
+        return colors.size();
+    }
+
+    @Override
+    public long initialDomain(int position) {
+        if (pinnedColor[position] != NONE) {
+            return 1L << pinnedColor[position];
+        }
+        int n = colors.size();
+        long domain = 0;
+        for (int color = 0; color < n; color++) {
+            // A color with k required predecessors cannot sit in the first k positions, and
+            // one with k required successors not in the last k
+            if (pinnedPosition[color] == NONE
+                    && Long.bitCount(predecessors[color]) <= position
+                    && Long.bitCount(successors[color]) < n - position) {
+                domain |= 1L << color;
+            }
+        }
+        return domain;
+    }
+
+    @Override
+    public long conflicts(int position, int color, int otherPosition) {
+        long conflicts = 1L << color;   // Every color is used once
+        if (Math.abs(otherPosition - position) == 1) {
+            conflicts |= adjacencyBans[color];
+        }
+        if (otherPosition < position) {
+            conflicts |= successors[color];
+        } else {
+            conflicts |= predecessors[color];
+        }
+        return conflicts;
+    }
+}
@@ -2,121 +2,294 @@ package nl.blitz.demo;
 
 import java.awt.Color;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 
+/**
+ * ColorPermutationTree draws every ordering of a set of colors as a tree. Colors
+ * are indices into a palette resolved once at construction, and each node keeps
+ * the colors still available as a bitmask, so a node is a few words regardless
+ * of how many colors there are.
+ */
 public class ColorPermutationTree {
+    public static final int MAX_COLORS = 63;   // Available colors are tracked in a long bitmask
+
     private Node root;
     private List<String> colors;
-    private List<String> subsetMapping;
+    private float[][] palette;   // RGB components of each color, by index
+    private long leafCount;
+    private ColorArrangementConstraint constraint;   // Null when every order is allowed
+    private long nodesBuilt;
+    private long branchesPruned;
+    private long deadEnds;
+    private LabelFormatter formatter;
+    private int[] scratch;       // Reused index buffer for formatting
     private static final float CIRCLE_RADIUS = 8f;
     private static final float HORIZONTAL_SPACING = 60f;
     private static final float VERTICAL_SPACING = 50f;
     private static final float CIRCLE_SPACING = 5f;
     private static final float PAGE_MARGIN = 30f;
+    private static final float PAGE_WIDTH = PDRectangle.LETTER.getWidth();
+    private static final float PAGE_HEIGHT = PDRectangle.LETTER.getHeight();
+    private static final float[] EDGE_COLOR = {0f, 0f, 0f};
+    private static final float EDGE_WIDTH = 1f;
+    private static final int NO_COLOR = -1;
+    private static final float LABEL_FONT_SIZE = 8f;
+    private static final float LEGEND_SWATCH_RADIUS = 4f;
+    private static final float LEGEND_LINE_HEIGHT = 11f;
+    private static final int MAX_EXACT_FACTORIAL = 20;   // 20! is the largest factorial that fits in a long
+
+    /**
+     * How much of each node is drawn.
+     */
+    public enum DrawMode {
+        FULL,    // The chosen color followed by the row of colors still available
+        DELTA    // Only the chosen color; the remaining set follows from the path
+    }
+
+    public static final int UNLIMITED_LEVELS = Integer.MAX_VALUE;
 
     private static class Node {
         Node[] children;
-        boolean isLeaf;
-        List<String> availableColors;
-        String chosenColor;
+        long available;    // Bitmask of color indices still to be placed
+        int chosenColor;   // Color index chosen on the edge into this node, NO_COLOR for the root
+
+        public Node(long available, int chosenColor) {
+            this.children = new Node[Long.bitCount(available)];
+            this.available = available;
+            this.chosenColor = chosenColor;
+        }
+
+        boolean isLeaf() {
+            return available == 0;
+        }
+    }
+
+    /**
+     * Node of a constrained tree, where the leaves below a node no longer
+     * follow from how many colors are left, so they are counted while building.
+     */
+    private static class CountedNode extends Node {
+        long leaves;
 
-        public Node(boolean isLeaf, int numChildren) {
-            this.children = new Node[numChildren];
-            this.isLeaf = isLeaf;
-            this.availableColors = new ArrayList<>();
-            this.chosenColor = "";
+        CountedNode(long available, int chosenColor) {
+            super(available, chosenColor);
         }
     }
 
+    /**
+     * Counts from building a constrained tree.
+     * @param nodesBuilt Nodes kept in the tree
+     * @param branchesPruned Color choices rejected by the constraint
+     * @param deadEnds Subtrees dropped because no complete arrangement was left below them
+     * @param arrangements Leaves, i.e. complete arrangements
+     */
+    public record PruningStats(long nodesBuilt, long branchesPruned, long deadEnds, long arrangements) {
+    }
+
+    /**
+     * Returns the number of nodes of the unconstrained tree over the given
+     * number of colors: one per ordered prefix, the sum of n!/(n-k)! over all
+     * k, or Long.MAX_VALUE when that does not fit.
+     */
+    public static long nodeCount(int colorCount) {
+        long nodes = 1;
+        long prefixes = 1;
+        for (int k = 0; k < colorCount; k++) {
+            if (prefixes > Long.MAX_VALUE / (colorCount - k)) {
+                return Long.MAX_VALUE;
+            }
+            prefixes *= colorCount - k;
+            if (nodes > Long.MAX_VALUE - prefixes) {
+                return Long.MAX_VALUE;
+            }
+            nodes += prefixes;
+        }
+        return nodes;
+    }
+
     public ColorPermutationTree(List<String> colors) {
+        this(colors, null);
+    }
+
+    /**
+     * Builds only the arrangements the constraint allows. Each color choice is
+     * checked as the tree grows position by position, so rejected branches are
+     * never expanded, and subtrees that end up without a complete arrangement
+     * are dropped.
+     * @param constraint Rules over the same colors, or null for all orders
+     */
+    public ColorPermutationTree(List<String> colors, ColorArrangementConstraint constraint) {
+        if (colors.size() > MAX_COLORS) {
+            throw new IllegalArgumentException("At most " + MAX_COLORS + " colors are supported: " + colors.size());
+        }
+        if (constraint != null && !constraint.getColors().equals(colors)) {
+            throw new IllegalArgumentException("The constraint is defined over different colors: " + constraint.getColors());
+        }
         this.colors = colors;
-        this.subsetMapping = new ArrayList<>();
-        this.root = buildSubsetTree(colors);
-        generateMapping();
+        this.constraint = constraint;
+        this.palette = new float[colors.size()][];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = getColorFromName(colors.get(i)).getRGBColorComponents(null);
+        }
+        this.formatter = LabelFormatter.brackets(colors);
+        this.scratch = new int[colors.size()];
+        long all = colors.isEmpty() ? 0 : -1L >>> (64 - colors.size());
+        this.root = buildSubsetTree(all, NO_COLOR, 0);
+        if (root == null) {
+            // Nothing satisfies the constraint; keep an empty root to draw
+            root = new Node(0, NO_COLOR);
+            root.children = new Node[0];
+        }
     }
 
-    private Node buildSubsetTree(List<String> availableColors) {
+    private Node buildSubsetTree(long available, int chosenColor, int position) {
         // Create a node for the current set of available colors
-        Node node = new Node(availableColors.isEmpty(), availableColors.size());
-        node.availableColors.addAll(availableColors);
+        Node node = constraint == null ? new Node(available, chosenColor) : new CountedNode(available, chosenColor);
+        nodesBuilt++;
 
         // If there are no more colors to choose from, this is a leaf node
-        if (availableColors.isEmpty()) {
+        if (available == 0) {
+            leafCount++;
+            if (node instanceof CountedNode counted) {
+                counted.leaves = 1;
+            }
             return node;
         }
 
-        // For each available color, create a child node
-        for (int i = 0; i < availableColors.size(); i++) {
-            List<String> newAvailable = new ArrayList<>(availableColors);
-            String chosenColor = newAvailable.remove(i);
-            
-            node.children[i] = buildSubsetTree(newAvailable);
-            node.children[i].chosenColor = chosenColor;
+        // For each available color, in palette order, create a child node
+        int i = 0;
+        long placed = ~available;
+        for (long remaining = available; remaining != 0; remaining &= remaining - 1) {
+            int color = Long.numberOfTrailingZeros(remaining);
+            if (constraint != null && !constraint.allows(placed, chosenColor, position, color)) {
+                branchesPruned++;
+                continue;
+            }
+            Node child = buildSubsetTree(available & ~(1L << color), color, position + 1);
+            if (child != null) {
+                node.children[i++] = child;
+                if (node instanceof CountedNode counted) {
+                    counted.leaves += ((CountedNode) child).leaves;
+                }
+            }
         }
         
+        if (i < node.children.length) {
+            if (i == 0) {
+                deadEnds++;
+                nodesBuilt--;
+                return null;
+            }
+            node.children = Arrays.copyOf(node.children, i);
+        }
         return node;
     }
 
-    private void generateMapping() {
-        subsetMapping.clear();
-        traverseAndMap(root, new ArrayList<>());
+    /**
+     * Returns what building the tree kept and pruned.
+     */
+    public PruningStats getPruningStats() {
+        return new PruningStats(nodesBuilt, branchesPruned, deadEnds, leafCount);
     }
 
-    private void traverseAndMap(Node node, List<String> currentSubset) {
-        if (node != null) {
-            if (node.isLeaf) {
-                subsetMapping.add(formatSubset(currentSubset));
-            }
-            for (int i = 0; i < node.children.length; i++) {
-                List<String> newSubset = new ArrayList<>(currentSubset);
-                newSubset.add(node.children[i].chosenColor);
-                traverseAndMap(node.children[i], newSubset);
-            }
+    /**
+     * Formats the colors of a bitmask, in palette order, into the shared formatter buffer.
+     */
+    private LabelFormatter fillColors(long mask) {
+        int count = 0;
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            scratch[count++] = Long.numberOfTrailingZeros(remaining);
         }
+        return formatter.format(scratch, count);
+    }
+
+    public void saveTreeToPDF(String filename) throws IOException {
+        saveTreeToPDF(filename, DrawMode.FULL, LevelOfDetail.FULL);
+    }
+
+    public void saveTreeToPDF(String filename, DrawMode mode, int maxLevels) throws IOException {
+        saveTreeToPDF(filename, mode, LevelOfDetail.depth(maxLevels));
     }
 
-    private String formatSubset(List<String> subset) {
-        if (subset.isEmpty()) {
-            return "[]";
+    public void saveTreeToPDF(String filename, DrawMode mode, LevelOfDetail detail) throws IOException {
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            renderTree(renderer, mode, detail);
+            renderer.save(filename);
         }
-        return "[" + String.join(", ", subset) + "]";
     }
 
-    public void saveTreeToPDF(String filename) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            
-            // Calculate initial position
-            float pageHeight = page.getMediaBox().getHeight();
-            
-            // Position the root node in the vertical center and left side
-            float startX = PAGE_MARGIN;
-            float startY = pageHeight / 2;
-            
-            // Draw the tree
-            drawTreeToPDF(contentStream, root, startX, startY, HORIZONTAL_SPACING, VERTICAL_SPACING);
-            
-            contentStream.close();
-            document.save(filename);
+    public void renderTree(Renderer renderer) throws IOException {
+        renderTree(renderer, DrawMode.FULL, LevelOfDetail.FULL);
+    }
+
+    /**
+     * Draws the tree with subtrees below maxLevels collapsed.
+     * @param maxLevels Depth below which subtrees are collapsed into a marker
+     *                  showing how many orders they hold; {@link #UNLIMITED_LEVELS} draws everything
+     */
+    public void renderTree(Renderer renderer, DrawMode mode, int maxLevels) throws IOException {
+        renderTree(renderer, mode, LevelOfDetail.depth(maxLevels));
+    }
+
+    /**
+     * Draws the tree to the given renderer.
+     * @param mode FULL draws the row of available colors at every node; DELTA
+     *             only draws the color each edge adds, plus a palette legend
+     * @param detail Where subtrees are collapsed into a marker showing how many orders they hold
+     */
+    public void renderTree(Renderer renderer, DrawMode mode, LevelOfDetail detail) throws IOException {
+        renderer.beginPage(PAGE_WIDTH, PAGE_HEIGHT);
+        
+        // Position the root node in the vertical center and left side
+        float startX = PAGE_MARGIN;
+        float startY = PAGE_HEIGHT / 2;
+        
+        // Edges and circles are batched separately so circles are painted on top
+        RenderBatch edges = new RenderBatch(0f);
+        RenderBatch circles = new RenderBatch(0f);
+        RenderBatch labels = new RenderBatch(LABEL_FONT_SIZE, EDGE_COLOR);
+        drawColorRow(circles, startX, startY, root.available);
+        drawTree(edges, circles, labels, root, startX, startY, HORIZONTAL_SPACING, VERTICAL_SPACING,
+            PAGE_HEIGHT - 2 * PAGE_MARGIN, 0, mode, detail);
+        if (mode == DrawMode.DELTA) {
+            drawLegend(circles, labels);
         }
+        edges.flush(renderer);
+        circles.flush(renderer);
+        labels.flush(renderer);
+        
+        renderer.endPage();
     }
 
-    private void drawTreeToPDF(PDPageContentStream contentStream, Node node, float x, float y, float xOffset, float yOffset) throws IOException {
+    /**
+     * Draws a node's subtree.
+     * @param band Height of the page band the node's subtree would share at a
+     *             balanced layout, used by the level of detail
+     */
+    private void drawTree(RenderBatch edges, RenderBatch circles, RenderBatch labels, Node node, float x, float y,
+                          float xOffset, float yOffset, float band, int depth, DrawMode mode, LevelOfDetail detail) {
         if (node == null) return;
         
-        // Draw available colors at the current node
-        float currentX = x;
-        for (String colorName : node.availableColors) {
-            drawColoredCircle(contentStream, currentX, y, colorName);
-            currentX += (CIRCLE_RADIUS * 2) + CIRCLE_SPACING;
+        float childBand = band / Math.max(node.children.length, 1);
+        if (!node.isLeaf() && detail.collapses(depth, childBand)) {
+            // Collapse the subtree into a count of the orders below it
+            int remaining = Long.bitCount(node.available);
+            long leaves;
+            if (node instanceof CountedNode counted) {
+                leaves = counted.leaves;
+            } else {
+                leaves = remaining <= MAX_EXACT_FACTORIAL ? factorial(remaining) : -1;
+            }
+            // In full mode the summary goes after the node's row of remaining colors
+            float summaryX = x + CIRCLE_RADIUS + CIRCLE_SPACING;
+            if (mode == DrawMode.FULL) {
+                summaryX += (remaining - 1) * (CIRCLE_RADIUS * 2 + CIRCLE_SPACING);
+            }
+            LevelOfDetail.drawSummary(circles, labels, summaryX, y, LABEL_FONT_SIZE, leaves, remaining + "!");
+            return;
         }
         
         // Draw children
@@ -127,53 +300,60 @@ public class ColorPermutationTree {
             Node child = node.children[i];
             if (child != null) {
                 // Draw line to child
-                contentStream.moveTo(x, y);
-                contentStream.lineTo(childX, childY);
-                contentStream.stroke();
+                edges.strokeLine(EDGE_COLOR, EDGE_WIDTH, x, y, childX, childY);
                 
-                // Draw the chosen color at the connection point
-                if (!child.chosenColor.isEmpty()) {
-                    drawColoredCircle(contentStream, childX, childY, child.chosenColor);
+                // Draw the chosen color at the connection point; in full mode the
+                // row of remaining colors is drawn over it, starting at the same spot
+                if (child.chosenColor != NO_COLOR) {
+                    drawColoredCircle(circles, childX, childY, child.chosenColor);
+                }
+                if (mode == DrawMode.FULL) {
+                    drawColorRow(circles, childX, childY, child.available);
                 }
                 
-                drawTreeToPDF(contentStream, child, childX, childY, xOffset, yOffset);
+                drawTree(edges, circles, labels, child, childX, childY, xOffset, yOffset, childBand, depth + 1, mode, detail);
                 childY += yOffset;
             }
         }
     }
 
-    private void drawColoredCircle(PDPageContentStream contentStream, float x, float y, String colorName) throws IOException {
-        Color color = getColorFromName(colorName);
-        contentStream.setNonStrokingColor(color);
-        
-        float radius = CIRCLE_RADIUS;
-        contentStream.moveTo(x + radius, y);
-        contentStream.curveTo(
-            x + radius, y + radius * 0.552f,
-            x + radius * 0.552f, y + radius,
-            x, y + radius
-        );
-        contentStream.curveTo(
-            x - radius * 0.552f, y + radius,
-            x - radius, y + radius * 0.552f,
-            x - radius, y
-        );
-        contentStream.curveTo(
-            x - radius, y - radius * 0.552f,
-            x - radius * 0.552f, y - radius,
-            x, y - radius
-        );
-        contentStream.curveTo(
-            x + radius * 0.552f, y - radius,
-            x + radius, y - radius * 0.552f,
-            x + radius, y
-        );
-        contentStream.fill();
-        
-        contentStream.setNonStrokingColor(Color.BLACK);
+    /**
+     * Draws the colors of a bitmask in a row starting at (x, y).
+     */
+    private void drawColorRow(RenderBatch circles, float x, float y, long colors) {
+        float currentX = x;
+        for (long remaining = colors; remaining != 0; remaining &= remaining - 1) {
+            drawColoredCircle(circles, currentX, y, Long.numberOfTrailingZeros(remaining));
+            currentX += (CIRCLE_RADIUS * 2) + CIRCLE_SPACING;
+        }
+    }
+
+    /**
+     * Draws a key from swatch to color name in the bottom left corner.
+     */
+    private void drawLegend(RenderBatch circles, RenderBatch labels) {
+        float x = PAGE_MARGIN + LEGEND_SWATCH_RADIUS;
+        float y = PAGE_MARGIN + LEGEND_SWATCH_RADIUS + (palette.length - 1) * LEGEND_LINE_HEIGHT;
+        for (int color = 0; color < palette.length; color++) {
+            circles.fillCircle(palette[color], x, y, LEGEND_SWATCH_RADIUS);
+            labels.showText(colors.get(color), x + LEGEND_SWATCH_RADIUS + CIRCLE_SPACING, y - LABEL_FONT_SIZE / 3);
+            y -= LEGEND_LINE_HEIGHT;
+        }
     }
 
-    private Color getColorFromName(String colorName) {
+    private static long factorial(int n) {
+        long result = 1;
+        for (int i = 2; i <= n; i++) {
+            result *= i;
+        }
+        return result;
+    }
+
+    private void drawColoredCircle(RenderBatch circles, float x, float y, int color) {
+        circles.fillCircle(palette[color], x, y, CIRCLE_RADIUS);
+    }
+
+    private static Color getColorFromName(String colorName) {
         return switch (colorName.toLowerCase()) {
             case "red" -> Color.RED;
             case "green" -> Color.GREEN;
@@ -186,29 +366,60 @@ public class ColorPermutationTree {
     }
 
     public void printTree() {
-        System.out.println("Color Subset Tree:");
-        printTreeRecursive(root, "", true);
+        TreePrinter.toConsole(this::writeTree);
+    }
+
+    /**
+     * Writes the tree dump to any Appendable, such as a file Writer or a StringBuilder.
+     */
+    public void printTree(Appendable out) throws IOException {
+        TreePrinter printer = new TreePrinter(out);
+        writeTree(printer);
+        printer.flush();
+    }
+
+    private void writeTree(TreePrinter printer) throws IOException {
+        printer.println("Color Subset Tree:");
+        printTreeRecursive(printer, root, true);
     }
 
-    private void printTreeRecursive(Node node, String prefix, boolean isLast) {
+    private void printTreeRecursive(TreePrinter printer, Node node, boolean isLast) throws IOException {
         if (node != null) {
-            System.out.println(prefix + (isLast ? "\\-- " : "+-- ") + formatSubset(node.availableColors));
+            printer.node(isLast, fillColors(node.available));
             
-            String newPrefix = prefix + (isLast ? "    " : "|   ");
+            printer.indent(isLast);
             for (int i = 0; i < node.children.length; i++) {
-                printTreeRecursive(node.children[i], newPrefix, i == node.children.length - 1);
+                printTreeRecursive(printer, node.children[i], i == node.children.length - 1);
             }
+            printer.outdent();
         }
     }
 
+    /**
+     * Prints the color order of every leaf. The orders are formatted while
+     * walking the tree rather than kept in a list.
+     */
     public void printSubsets() {
-        System.out.println("\nAll Possible Subsets:");
-        for (String subset : subsetMapping) {
-            System.out.println(subset);
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nAll Possible Subsets:");
+            if (leafCount > 0) {
+                printLeaves(printer, root, new int[colors.size()], 0);
+            }
+        });
+    }
+
+    private void printLeaves(TreePrinter printer, Node node, int[] path, int depth) throws IOException {
+        if (node.isLeaf()) {
+            printer.println(formatter.format(path, depth));
+            return;
+        }
+        for (Node child : node.children) {
+            path[depth] = child.chosenColor;
+            printLeaves(printer, child, path, depth + 1);
         }
     }
 
     public int getSubsetCount() {
-        return subsetMapping.size();
+        return (int) leafCount;
     }
 } 
\ No newline at end of file
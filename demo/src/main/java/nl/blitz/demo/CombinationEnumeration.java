@@ -0,0 +1,278 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * CombinationEnumeration ranks the subsets of exactly k out of n elements,
+ * the k-element leaves of {@link SubsetTree}, without touching the other
+ * 2^n - C(n, k) subsets. Results are ascending element indices; element i is
+ * bit i of a mask. Three orders are supported:
+ * <ul>
+ * <li>{@link Order#LEXICOGRAPHIC}: by the first differing element, {0,1,2} before {0,1,3}</li>
+ * <li>{@link Order#COLEX}: by the last differing element, so masks come in increasing value</li>
+ * <li>{@link Order#REVOLVING_DOOR}: consecutive subsets differ by swapping one element
+ *     for another, as in Kreher and Stinson, "Combinatorial Algorithms", section 2.3.3</li>
+ * </ul>
+ * Counts and ranks come from a table of binomial coefficients, so any rank is
+ * reached in O(n) steps, and {@link #forEachParallel} hands out independent
+ * rank ranges to the common fork-join pool.
+ */
+public class CombinationEnumeration implements RankedEnumeration {
+    public static final int MAX_ELEMENTS = 64;   // Masks are longs; C(64, 32) still fits
+    private static final int CHUNKS_PER_THREAD = 16;   // Target number of rank ranges per worker thread
+    private static final long[][] BINOMIALS = new long[MAX_ELEMENTS + 1][MAX_ELEMENTS + 1];
+
+    static {
+        for (int n = 0; n < BINOMIALS.length; n++) {
+            BINOMIALS[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+            }
+        }
+    }
+
+    /**
+     * The order in which the subsets are listed.
+     */
+    public enum Order {
+        LEXICOGRAPHIC,
+        COLEX,
+        REVOLVING_DOOR
+    }
+
+    private final int elementCount;
+    private final int size;
+    private final Order order;
+
+    /**
+     * @param elementCount n, the number of elements to choose from
+     * @param size k, the number of elements in each subset
+     */
+    public CombinationEnumeration(int elementCount, int size, Order order) {
+        if (elementCount < 0 || elementCount > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Combination enumeration supports 0 to " + MAX_ELEMENTS + " elements: " + elementCount);
+        }
+        if (size < 0 || size > elementCount) {
+            throw new IllegalArgumentException("Subset size must be between 0 and " + elementCount + ": " + size);
+        }
+        this.elementCount = elementCount;
+        this.size = size;
+        this.order = order;
+    }
+
+    /**
+     * Returns C(n, k), or 0 when k is out of range; n may be at most {@link #MAX_ELEMENTS}.
+     */
+    public static long binomial(int n, int k) {
+        return k < 0 || k > n ? 0 : BINOMIALS[n][k];
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    @Override
+    public int getMaxLength() {
+        return size;
+    }
+
+    @Override
+    public long count() {
+        return BINOMIALS[elementCount][size];
+    }
+
+    @Override
+    public int unrank(long rank, int[] out) {
+        checkRank(rank);
+        switch (order) {
+            case LEXICOGRAPHIC -> {
+                // Skip whole blocks of subsets that start with a smaller element
+                int element = 0;
+                for (int i = 0; i < size; i++) {
+                    long block = binomial(elementCount - 1 - element, size - 1 - i);
+                    while (rank >= block) {
+                        rank -= block;
+                        element++;
+                        block = binomial(elementCount - 1 - element, size - 1 - i);
+                    }
+                    out[i] = element++;
+                }
+            }
+            case COLEX -> {
+                // The rank is the sum of C(c_i, i + 1); take the largest element first
+                int element = elementCount - 1;
+                for (int i = size - 1; i >= 0; i--) {
+                    while (binomial(element, i + 1) > rank) {
+                        element--;
+                    }
+                    out[i] = element;
+                    rank -= binomial(element, i + 1);
+                    element--;
+                }
+            }
+            case REVOLVING_DOOR -> {
+                // Kreher-Stinson algorithm 2.12, with elements shifted down by one
+                int x = elementCount;
+                for (int i = size; i >= 1; i--) {
+                    while (binomial(x, i) > rank) {
+                        x--;
+                    }
+                    out[i - 1] = x;
+                    rank = binomial(x + 1, i) - rank - 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the rank of a subset given by its ascending element indices.
+     */
+    public long rank(int[] combination) {
+        long rank = 0;
+        switch (order) {
+            case LEXICOGRAPHIC -> {
+                int element = 0;
+                for (int i = 0; i < size; i++) {
+                    for (; element < combination[i]; element++) {
+                        rank += binomial(elementCount - 1 - element, size - 1 - i);
+                    }
+                    element++;
+                }
+            }
+            case COLEX -> {
+                for (int i = 0; i < size; i++) {
+                    rank += binomial(combination[i], i + 1);
+                }
+            }
+            case REVOLVING_DOOR -> {
+                // Kreher-Stinson algorithm 2.11: alternating sum from the largest element down
+                rank = -(size % 2);
+                long sign = 1;
+                for (int i = size; i >= 1; i--) {
+                    rank += sign * binomial(combination[i - 1] + 1, i);
+                    sign = -sign;
+                }
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the subset at a rank as a mask with bit i set for element i.
+     */
+    public long unrankMask(long rank) {
+        int[] combination = new int[size];
+        unrank(rank, combination);
+        return toMask(combination, size);
+    }
+
+    /**
+     * Returns the rank of a subset given as a mask of exactly k elements.
+     */
+    public long rankMask(long mask) {
+        if (Long.bitCount(mask) != size || (elementCount < 64 && (mask >>> elementCount) != 0)) {
+            throw new IllegalArgumentException("Not a subset of " + size + " out of " + elementCount + " elements: " + Long.toBinaryString(mask));
+        }
+        int[] combination = new int[size];
+        int i = 0;
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            combination[i++] = Long.numberOfTrailingZeros(remaining);
+        }
+        return rank(combination);
+    }
+
+    public static long toMask(int[] indices, int length) {
+        long mask = 0;
+        for (int i = 0; i < length; i++) {
+            mask |= 1L << indices[i];
+        }
+        return mask;
+    }
+
+    @Override
+    public int successor(long rank, int[] out, int length) {
+        switch (order) {
+            case LEXICOGRAPHIC -> {
+                // Advance the last element that still has room and pack the rest behind it
+                int i = size - 1;
+                while (out[i] == elementCount - size + i) {
+                    i--;
+                }
+                out[i]++;
+                for (int j = i + 1; j < size; j++) {
+                    out[j] = out[j - 1] + 1;
+                }
+            }
+            case COLEX -> {
+                // Advance the first element that does not run into the next one and
+                // reset the ones before it; Gosper's hack on the mask does the same
+                int i = 0;
+                while (i + 1 < size && out[i] + 1 == out[i + 1]) {
+                    i++;
+                }
+                out[i]++;
+                for (int j = 0; j < i; j++) {
+                    out[j] = j;
+                }
+            }
+            case REVOLVING_DOOR -> revolvingDoorSuccessor(out);
+        }
+        return size;
+    }
+
+    /**
+     * Kreher-Stinson algorithm 2.13 on 0-based elements: t_j = j in the book
+     * becomes out[j - 1] == j - 1 here.
+     */
+    private void revolvingDoorSuccessor(int[] out) {
+        int j = 1;
+        while (j <= size && out[j - 1] == j - 1) {
+            j++;
+        }
+        int next = j < size ? out[j] : elementCount;   // t_{j+1}, with t_{k+1} = n + 1
+        if ((size - j) % 2 != 0) {
+            if (j == 1) {
+                out[0]--;
+            } else {
+                out[j - 2] = j - 1;
+                if (j > 2) {
+                    out[j - 3] = j - 2;
+                }
+            }
+        } else if (next != out[j - 1] + 1) {
+            if (j > 1) {
+                out[j - 2] = out[j - 1];
+            }
+            out[j - 1]++;
+        } else {
+            out[j] = out[j - 1];
+            out[j - 1] = j - 1;
+        }
+    }
+
+    /**
+     * Passes every subset to the consumer from the worker threads. The rank
+     * range is cut into independent slices that are each unranked once and then
+     * stepped with {@link #successor}; within a slice results arrive in order.
+     * The consumer must be thread-safe.
+     */
+    public void forEachParallel(ResultConsumer consumer) {
+        long total = count();
+        long chunks = Math.min(total, (long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        if (chunks == 0) {
+            return;
+        }
+        long chunkSize = (total + chunks - 1) / chunks;
+        LongStream.range(0, chunks).parallel().forEach(chunk -> {
+            try {
+                forEach(chunk * chunkSize, chunkSize, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CombinationEnumerationBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        // Picking the k-subsets out of the full power set vs. listing them directly
+        int n = 24;
+        int k = 5;
+        System.out.println("Subsets of size " + k + " out of " + n + " elements:");
+        benchmarkFiltered(n, k);
+        for (CombinationEnumeration.Order order : CombinationEnumeration.Order.values()) {
+            benchmarkDirect(new CombinationEnumeration(n, k, order));
+        }
+
+        // Sizes where the power set is out of reach
+        System.out.println("\nLarger inputs, sequential vs. parallel:");
+        System.out.printf("%-16s %-16s %14s %12s %12s%n", "subsets", "order", "count", "seq ms", "parallel ms");
+        int[][] sizes = {{40, 5}, {48, 6}, {64, 4}};
+        for (int[] size : sizes) {
+            for (CombinationEnumeration.Order order : CombinationEnumeration.Order.values()) {
+                benchmarkParallel(new CombinationEnumeration(size[0], size[1], order), "C(" + size[0] + ", " + size[1] + ")");
+            }
+        }
+    }
+
+    private static void benchmarkFiltered(int n, int k) throws IOException {
+        SubsetEnumeration subsets = new SubsetEnumeration(n);
+        long matches = 0;
+        long nanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long[] count = new long[1];
+            long start = System.nanoTime();
+            subsets.forEach(0, Long.MAX_VALUE, (rank, indices, length) -> {
+                if (length == k) {
+                    count[0]++;
+                }
+            });
+            nanos = System.nanoTime() - start;
+            matches = count[0];
+        }
+        System.out.printf("%-32s %10d of %10d results %10.1f ms%n", "filtered power set", matches, subsets.count(), nanos / 1e6);
+    }
+
+    private static void benchmarkDirect(CombinationEnumeration combinations) throws IOException {
+        long checksum = 0;
+        long nanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long[] sum = new long[1];
+            long start = System.nanoTime();
+            combinations.forEach(0, Long.MAX_VALUE, (rank, indices, length) -> sum[0] += indices[length - 1]);
+            nanos = System.nanoTime() - start;
+            checksum = sum[0];
+        }
+        System.out.printf("%-32s %10d of %10d results %10.1f ms  (checksum %d)%n",
+            combinations.getOrder().name().toLowerCase(), combinations.count(), combinations.count(), nanos / 1e6, checksum);
+    }
+
+    private static void benchmarkParallel(CombinationEnumeration combinations, String name) throws IOException {
+        long sequentialNanos = 0;
+        long parallelNanos = 0;
+        long sequentialSum = 0;
+        long parallelSum = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long[] sum = new long[1];
+            long start = System.nanoTime();
+            combinations.forEach(0, Long.MAX_VALUE, (rank, indices, length) -> sum[0] += indices[0]);
+            sequentialNanos = System.nanoTime() - start;
+            sequentialSum = sum[0];
+
+            LongAdder adder = new LongAdder();
+            start = System.nanoTime();
+            combinations.forEachParallel((rank, indices, length) -> adder.add(indices[0]));
+            parallelNanos = System.nanoTime() - start;
+            parallelSum = adder.sum();
+        }
+        System.out.printf("%-16s %-16s %14d %12.1f %12.1f%n", name, combinations.getOrder().name().toLowerCase(),
+            combinations.count(), sequentialNanos / 1e6, parallelNanos / 1e6);
+        if (sequentialSum != parallelSum) {
+            System.err.println("✗ Parallel run of " + name + " saw different subsets");
+        }
+    }
+}
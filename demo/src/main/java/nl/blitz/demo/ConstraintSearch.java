@@ -0,0 +1,274 @@
+package nl.blitz.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * ConstraintSearch is a reusable backtracking engine for placement problems
+ * described by a {@link PlacementConstraint}. Domains are kept as bitsets;
+ * after every assignment the domains of all unassigned variables are pruned
+ * (forward checking) and a branch is abandoned as soon as one becomes empty.
+ * The next variable is the one with the fewest remaining values (MRV).
+ * Parallel runs expand the top of the search tree into independent subtrees
+ * and search those on the common fork-join pool.
+ */
+public class ConstraintSearch {
+    private static final int SUBTREES_PER_THREAD = 16;   // Target number of subtrees per worker thread
+
+    private final int variableCount;
+    private final int valueCount;
+    private final long[] initialDomains;   // Bitset of allowed values per variable
+    private final long[] conflictTable;    // Ruled-out values, indexed by (variable, value, otherVariable)
+    private final LongAdder nodesVisited;  // Assignments tried during the last run
+
+    /**
+     * Search state for one subtree: current domains, partial assignment and
+     * the bitset of variables still unassigned.
+     */
+    private record State(long[] domains, int[] assignment, long unassigned) {
+    }
+
+    /**
+     * Per-thread search buffers, so a worker allocates nothing while searching.
+     */
+    private class Worker {
+        final long[][] domainStack = new long[variableCount + 1][];
+        final int[] assignment = new int[variableCount];
+        final Consumer<int[]> consumer;
+        long nodes;
+        long solutions;
+
+        Worker(Consumer<int[]> consumer) {
+            this.consumer = consumer;
+            for (int i = 0; i <= variableCount; i++) {
+                domainStack[i] = new long[variableCount];
+            }
+        }
+
+        void run(State state) {
+            System.arraycopy(state.assignment(), 0, assignment, 0, variableCount);
+            System.arraycopy(state.domains(), 0, domainStack[0], 0, variableCount);
+            search(0, state.unassigned());
+            nodesVisited.add(nodes);
+        }
+
+        void search(int depth, long unassigned) {
+            if (unassigned == 0) {
+                solutions++;
+                if (consumer != null) {
+                    consumer.accept(assignment.clone());
+                }
+                return;
+            }
+            long[] domains = domainStack[depth];
+            long[] next = domainStack[depth + 1];
+            int variable = selectVariable(domains, unassigned);
+            long remaining = unassigned & ~(1L << variable);
+            long domain = domains[variable];
+            while (domain != 0) {
+                int value = Long.numberOfTrailingZeros(domain);
+                domain &= domain - 1;
+                nodes++;
+                if (forwardCheck(domains, next, variable, value, remaining)) {
+                    assignment[variable] = value;
+                    search(depth + 1, remaining);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares the engine for a constraint, precomputing all conflict bitsets.
+     * @param constraint The constraint plugin describing the problem
+     */
+    public ConstraintSearch(PlacementConstraint constraint) {
+        this.variableCount = constraint.getVariableCount();
+        this.valueCount = constraint.getValueCount();
+        if (variableCount < 1 || variableCount > 64 || valueCount < 1 || valueCount > 64) {
+            throw new IllegalArgumentException("Variable and value counts must be between 1 and 64");
+        }
+        this.initialDomains = new long[variableCount];
+        this.conflictTable = new long[variableCount * valueCount * variableCount];
+        this.nodesVisited = new LongAdder();
+        for (int variable = 0; variable < variableCount; variable++) {
+            initialDomains[variable] = constraint.initialDomain(variable);
+            for (int value = 0; value < valueCount; value++) {
+                for (int other = 0; other < variableCount; other++) {
+                    if (other != variable) {
+                        conflictTable[index(variable, value, other)] = constraint.conflicts(variable, value, other);
+                    }
+                }
+            }
+        }
+    }
+
+    private int index(int variable, int value, int otherVariable) {
+        return (variable * valueCount + value) * variableCount + otherVariable;
+    }
+
+    /**
+     * Picks the unassigned variable with the smallest domain (ties go to the lowest index).
+     */
+    private int selectVariable(long[] domains, long unassigned) {
+        int best = -1;
+        int bestSize = Integer.MAX_VALUE;
+        long candidates = unassigned;
+        while (candidates != 0) {
+            int variable = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            int size = Long.bitCount(domains[variable]);
+            if (size < bestSize) {
+                best = variable;
+                bestSize = size;
+                if (size <= 1) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Writes the pruned domains after assigning value to variable into next.
+     * @return false if some unassigned variable is left without values
+     */
+    private boolean forwardCheck(long[] domains, long[] next, int variable, int value, long remaining) {
+        int base = (variable * valueCount + value) * variableCount;
+        long others = remaining;
+        while (others != 0) {
+            int other = Long.numberOfTrailingZeros(others);
+            others &= others - 1;
+            long domain = domains[other] & ~conflictTable[base + other];
+            if (domain == 0) {
+                return false;
+            }
+            next[other] = domain;
+        }
+        return true;
+    }
+
+    private State rootState() {
+        long unassigned = variableCount == 64 ? -1L : (1L << variableCount) - 1;
+        for (long domain : initialDomains) {
+            if (domain == 0) {
+                return null;
+            }
+        }
+        return new State(initialDomains.clone(), new int[variableCount], unassigned);
+    }
+
+    /**
+     * Counts all solutions on the calling thread.
+     */
+    public long countSolutions() {
+        return run(null);
+    }
+
+    /**
+     * Passes every solution to the consumer on the calling thread, in search order.
+     * @param consumer Receives a fresh array holding the value of each variable
+     */
+    public void forEachSolution(Consumer<int[]> consumer) {
+        run(consumer);
+    }
+
+    /**
+     * Collects all solutions on the calling thread, in search order.
+     */
+    public List<int[]> findAllSolutions() {
+        List<int[]> solutions = new ArrayList<>();
+        run(solutions::add);
+        return solutions;
+    }
+
+    /**
+     * Counts all solutions, searching independent subtrees in parallel.
+     */
+    public long countSolutionsParallel() {
+        return runParallel(null);
+    }
+
+    /**
+     * Passes every solution to the consumer from the worker threads, in no
+     * particular order. The consumer must be thread-safe.
+     */
+    public void forEachSolutionParallel(Consumer<int[]> consumer) {
+        runParallel(consumer);
+    }
+
+    /**
+     * Returns the number of assignments tried during the last run.
+     */
+    public long getNodesVisited() {
+        return nodesVisited.sum();
+    }
+
+    private long run(Consumer<int[]> consumer) {
+        nodesVisited.reset();
+        State root = rootState();
+        if (root == null) {
+            return 0;
+        }
+        Worker worker = new Worker(consumer);
+        worker.run(root);
+        return worker.solutions;
+    }
+
+    private long runParallel(Consumer<int[]> consumer) {
+        nodesVisited.reset();
+        State root = rootState();
+        if (root == null) {
+            return 0;
+        }
+        LongAdder solutions = new LongAdder();
+        int target = ForkJoinPool.getCommonPoolParallelism() * SUBTREES_PER_THREAD;
+        List<State> frontier = split(root, target, consumer, solutions);
+        frontier.parallelStream().forEach(state -> {
+            Worker worker = new Worker(consumer);
+            worker.run(state);
+            solutions.add(worker.solutions);
+        });
+        return solutions.sum();
+    }
+
+    /**
+     * Expands the top of the search tree breadth-first until there are at least
+     * target independent subtrees. Solutions found while expanding are reported directly.
+     */
+    private List<State> split(State root, int target, Consumer<int[]> consumer, LongAdder solutions) {
+        List<State> frontier = List.of(root);
+        long nodes = 0;
+        while (frontier.size() < target && !frontier.isEmpty()) {
+            List<State> expanded = new ArrayList<>();
+            for (State state : frontier) {
+                if (state.unassigned() == 0) {
+                    solutions.increment();
+                    if (consumer != null) {
+                        consumer.accept(state.assignment().clone());
+                    }
+                    continue;
+                }
+                int variable = selectVariable(state.domains(), state.unassigned());
+                long remaining = state.unassigned() & ~(1L << variable);
+                long domain = state.domains()[variable];
+                while (domain != 0) {
+                    int value = Long.numberOfTrailingZeros(domain);
+                    domain &= domain - 1;
+                    nodes++;
+                    long[] next = new long[variableCount];
+                    if (forwardCheck(state.domains(), next, variable, value, remaining)) {
+                        int[] assignment = state.assignment().clone();
+                        assignment[variable] = value;
+                        expanded.add(new State(next, assignment, remaining));
+                    }
+                }
+            }
+            frontier = expanded;
+        }
+        nodesVisited.add(nodes);
+        return frontier;
+    }
+}
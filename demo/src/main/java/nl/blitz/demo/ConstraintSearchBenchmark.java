@@ -0,0 +1,129 @@
+package nl.blitz.demo;
+
+import java.util.List;
+import java.util.Map;
+
+public class ConstraintSearchBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final List<String> PALETTE = List.of("Red", "Orange", "Yellow", "Green", "Cyan", "Blue",
+        "Magenta", "Pink", "Gray", "Black", "White", "LightGray");
+
+    public static void main(String[] args) {
+        // Compare the built-in N-Queens backtracker with the constraint engine
+        System.out.println("N-Queens: built-in solver vs. constraint engine");
+        System.out.printf("%4s %10s %12s %12s %12s %14s%n", "n", "solutions", "built-in ms", "engine ms", "parallel ms", "engine nodes");
+        for (int n = 8; n <= 13; n++) {
+            benchmarkNQueens(n);
+        }
+
+        // Related problems through the same engine
+        System.out.println("\nOther placement problems:");
+        ConstraintSearch superQueens = new ConstraintSearch(new SuperQueensConstraint(10));
+        System.out.println("10 super-queens: " + superQueens.countSolutionsParallel() + " solutions (expected 4)");
+
+        ConstraintSearch preplaced = new ConstraintSearch(new NQueensConstraint(8, Map.of(0, 0)));
+        System.out.println("8-queens with a queen pre-placed at (0, 0): " + preplaced.countSolutions() + " solutions (expected 4)");
+
+        long[] diagonalBlocked = new long[8];
+        for (int row = 0; row < 8; row++) {
+            diagonalBlocked[row] = 1L << row;
+        }
+        ConstraintSearch rooks = new ConstraintSearch(new NRooksConstraint(8, diagonalBlocked));
+        System.out.println("8 rooks avoiding the main diagonal: " + rooks.countSolutions() + " solutions (expected 14833)");
+
+        // Constrained color arrangements: the pruned tree for a size that can still be
+        // drawn, and the engine for sizes where the full tree is out of reach
+        System.out.println("\nColor arrangements:");
+        System.out.printf("%4s %14s %14s %12s %14s %12s%n", "n", "all orders", "arrangements", "engine ms", "engine nodes", "tree ms");
+        for (int n = 8; n <= 12; n++) {
+            benchmarkArrangements(n);
+        }
+    }
+
+    /**
+     * Bans neighbouring pairs around a ring of colors, pins the first color to
+     * the middle position and requires the last three colors in order.
+     */
+    private static ColorArrangementConstraint arrangementRules(List<String> colors) {
+        int n = colors.size();
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(colors);
+        for (int i = 0; i < n; i += 2) {
+            constraint.banAdjacent(colors.get(i), colors.get((i + 1) % n));
+        }
+        constraint.pin(colors.get(0), n / 2);
+        constraint.requireBefore(colors.get(n - 3), colors.get(n - 2));
+        constraint.requireBefore(colors.get(n - 2), colors.get(n - 1));
+        return constraint;
+    }
+
+    private static void benchmarkArrangements(int n) {
+        List<String> colors = PALETTE.subList(0, n);
+        ColorArrangementConstraint constraint = arrangementRules(colors);
+        ConstraintSearch engine = new ConstraintSearch(constraint);
+        long arrangements = 0;
+        long engineNanos = 0;
+
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            arrangements = engine.countSolutions();
+            engineNanos = System.nanoTime() - start;
+        }
+        engine.countSolutions();
+
+        // The tree keeps every node, so it is only built for the smaller sizes
+        String treeMillis = "-";
+        if (n <= 10) {
+            long start = System.nanoTime();
+            ColorPermutationTree tree = new ColorPermutationTree(colors, constraint);
+            treeMillis = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+            ColorPermutationTree.PruningStats stats = tree.getPruningStats();
+            if (stats.arrangements() != arrangements) {
+                System.err.println("✗ Arrangement counts differ for n=" + n + ": tree " + stats.arrangements()
+                    + ", engine " + arrangements);
+            }
+            if (n == 8) {
+                System.out.println("Tree for n=8: " + stats);
+            }
+        }
+
+        long allOrders = 1;
+        for (int i = 2; i <= n; i++) {
+            allOrders *= i;
+        }
+        System.out.printf("%4d %14d %14d %12.1f %14d %12s%n", n, allOrders, arrangements,
+            engineNanos / 1e6, engine.getNodesVisited(), treeMillis);
+    }
+
+    private static void benchmarkNQueens(int n) {
+        long builtInSolutions = 0;
+        long engineSolutions = 0;
+        long parallelSolutions = 0;
+        long builtInNanos = 0;
+        long engineNanos = 0;
+        long parallelNanos = 0;
+        ConstraintSearch engine = new ConstraintSearch(new NQueensConstraint(n));
+
+        // Only the last round is timed; the earlier ones warm up the JIT
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            builtInSolutions = new NQueensSubsetTree(n).getSolutionCount();
+            builtInNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            engineSolutions = engine.countSolutions();
+            engineNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parallelSolutions = engine.countSolutionsParallel();
+            parallelNanos = System.nanoTime() - start;
+        }
+        engine.countSolutions();
+
+        System.out.printf("%4d %10d %12.1f %12.1f %12.1f %14d%n", n, builtInSolutions,
+            builtInNanos / 1e6, engineNanos / 1e6, parallelNanos / 1e6, engine.getNodesVisited());
+        if (builtInSolutions != engineSolutions || engineSolutions != parallelSolutions) {
+            System.err.println("✗ Solution counts differ for n=" + n + ": " + builtInSolutions + ", "
+                + engineSolutions + ", " + parallelSolutions);
+        }
+    }
+}
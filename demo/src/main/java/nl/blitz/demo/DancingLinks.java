@@ -0,0 +1,211 @@
+package nl.blitz.demo;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * DancingLinks solves exact cover problems with Knuth's Algorithm X on a
+ * dancing-links matrix. All nodes live in parallel int arrays (left, right,
+ * up, down, column, row) rather than node objects, so a matrix with millions
+ * of entries is a handful of arrays and covering/uncovering touches no heap
+ * objects.
+ * <p>
+ * Node 0 is the root and nodes 1..columnCount are the column headers. Primary
+ * columns must be covered exactly once; secondary columns may be covered at
+ * most once and are never chosen for branching.
+ */
+public class DancingLinks {
+    private static final int ROOT = 0;
+
+    private final int columnCount;
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column;       // Column header of each node
+    private int[] rowOf;        // Row id of each node (-1 for headers)
+    private final int[] size;   // Number of nodes in each column
+    private int nodeCount;      // Nodes in use, including root and headers
+    private int rowCount;
+    private long updates;       // Link updates during the last solve
+
+    /**
+     * Creates an empty matrix.
+     * @param primaryColumnCount Columns that must be covered exactly once
+     * @param secondaryColumnCount Columns that may be covered at most once
+     */
+    public DancingLinks(int primaryColumnCount, int secondaryColumnCount) {
+        this.columnCount = primaryColumnCount + secondaryColumnCount;
+        int capacity = Math.max(16, (columnCount + 1) * 4);
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.up = new int[capacity];
+        this.down = new int[capacity];
+        this.column = new int[capacity];
+        this.rowOf = new int[capacity];
+        this.size = new int[columnCount + 1];
+
+        // Root and headers; only primary headers are linked into the root's list
+        for (int c = 0; c <= columnCount; c++) {
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            rowOf[c] = -1;
+            left[c] = c;
+            right[c] = c;
+        }
+        for (int c = 1; c <= primaryColumnCount; c++) {
+            left[c] = c - 1;
+            right[c - 1] = c;
+        }
+        left[ROOT] = primaryColumnCount;
+        right[primaryColumnCount] = ROOT;
+        nodeCount = columnCount + 1;
+    }
+
+    /**
+     * Adds a row covering the given columns (0-based; primary columns first).
+     * @return The id of the row, in the order rows were added
+     */
+    public int addRow(int... columns) {
+        int row = rowCount++;
+        ensureCapacity(nodeCount + columns.length);
+        int first = -1;
+        for (int col : columns) {
+            if (col < 0 || col >= columnCount) {
+                throw new IllegalArgumentException("Column out of range: " + col);
+            }
+            int header = col + 1;
+            int node = nodeCount++;
+            column[node] = header;
+            rowOf[node] = row;
+
+            // Append to the bottom of the column
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+
+            // Append to the end of the row
+            if (first < 0) {
+                first = node;
+                left[node] = node;
+                right[node] = node;
+            } else {
+                left[node] = left[first];
+                right[node] = first;
+                right[left[first]] = node;
+                left[first] = node;
+            }
+        }
+        return row;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= left.length) {
+            return;
+        }
+        int capacity = Math.max(required, left.length * 2);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        up = Arrays.copyOf(up, capacity);
+        down = Arrays.copyOf(down, capacity);
+        column = Arrays.copyOf(column, capacity);
+        rowOf = Arrays.copyOf(rowOf, capacity);
+    }
+
+    /**
+     * Counts all exact covers.
+     */
+    public long countSolutions() {
+        return solve(null);
+    }
+
+    /**
+     * Finds all exact covers.
+     * @param consumer Receives the ids of the chosen rows for each solution, or null to only count
+     * @return The number of solutions
+     */
+    public long solve(Consumer<int[]> consumer) {
+        updates = 0;
+        int[] chosen = new int[rowCount];
+        return search(0, chosen, consumer);
+    }
+
+    /**
+     * Returns the number of link updates performed by the last solve, a
+     * machine-independent measure of the work done.
+     */
+    public long getUpdates() {
+        return updates;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    private long search(int depth, int[] chosen, Consumer<int[]> consumer) {
+        if (right[ROOT] == ROOT) {
+            if (consumer != null) {
+                consumer.accept(Arrays.copyOf(chosen, depth));
+            }
+            return 1;
+        }
+
+        // Branch on the primary column with the fewest remaining rows
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+            }
+        }
+        if (size[best] == 0) {
+            return 0;
+        }
+
+        long solutions = 0;
+        cover(best);
+        for (int r = down[best]; r != best; r = down[r]) {
+            chosen[depth] = rowOf[r];
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+            solutions += search(depth + 1, chosen, consumer);
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(best);
+        return solutions;
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+                updates++;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
@@ -0,0 +1,266 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * DiskCache keeps rendered drawings under {@code output/cache}, so they are
+ * drawn once and survive restarts.
+ * <ul>
+ * <li>Files are named by the SHA-256 of what they contain (family, elements,
+ *     level of detail and format), so equal requests from either controller
+ *     share one file and no index has to be saved.</li>
+ * <li>A drawing is written to a temporary file and moved into place
+ *     atomically; readers see the old file, no file or the whole new one,
+ *     never a partial write.</li>
+ * <li>The total size is bounded; the least recently served files are
+ *     deleted first. Serving a file touches its modification time, so the
+ *     order is rebuilt from the directory after a restart.</li>
+ * <li>Each file is drawn once at a time: requests arriving while it is being
+ *     drawn wait for that drawing and then serve the file, or fail with it,
+ *     instead of drawing it again.</li>
+ * <li>Files are copied to the response with {@link FileChannel#transferTo},
+ *     never loaded onto the heap. The channel is opened before the file can
+ *     be evicted, and a deleted file stays readable while it is open.</li>
+ * </ul>
+ */
+@Component
+public class DiskCache {
+    private static final Logger log = LoggerFactory.getLogger(DiskCache.class);
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static final Map<MediaType, String> EXTENSIONS = Map.of(
+        MediaType.APPLICATION_PDF, ".pdf",
+        MediaType.parseMediaType("image/svg+xml"), ".svg",
+        MediaType.IMAGE_PNG, ".png");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);   // File sizes, least recently served first
+    private long totalBytes;
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();   // Drawings in progress, by file name
+
+    public DiskCache(@Value("${codecompass.disk-cache.directory:output/cache}") String directory,
+                     @Value("${codecompass.disk-cache.max-bytes:268435456}") long maxBytes) throws IOException {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+        load();
+    }
+
+    /**
+     * Rebuilds the index from the directory, oldest first, and removes
+     * temporary files left behind by a crash.
+     */
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).toList();
+        }
+        Map<Path, FileTime> modified = new LinkedHashMap<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                Files.deleteIfExists(file);
+            } else {
+                modified.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        modified.entrySet().stream()
+            .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+            .forEach(entry -> {
+                try {
+                    record(entry.getKey(), Files.size(entry.getKey()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        evict();
+    }
+
+    /**
+     * Returns the file name for a drawing: the hash of everything that
+     * determines its content, with the format's extension.
+     */
+    public static String fileName(TreeApiController.Family family, List<?> elements, LevelOfDetail detail, MediaType type) {
+        // Length-prefixed, so elements containing separators cannot collide
+        StringBuilder description = new StringBuilder(family.path).append('\n');
+        for (Object element : elements) {
+            String label = String.valueOf(element);
+            description.append(label.length()).append(':').append(label);
+        }
+        description.append('\n').append(detail).append('\n').append(type);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + EXTENSIONS.getOrDefault(type, "");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);   // Every JVM has SHA-256
+        }
+    }
+
+    /**
+     * Returns a body copying the cached file, or null when it is not cached.
+     */
+    public StreamingResponseBody get(String fileName) {
+        Path file = directory.resolve(fileName);
+        synchronized (this) {
+            if (entries.get(file) == null) {
+                return null;
+            }
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return transferring(FileChannel.open(file, StandardOpenOption.READ));
+        } catch (IOException e) {
+            // Deleted behind our back; forget it and draw it again
+            forget(file);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a body that serves the cached file, or when there is none draws
+     * it to a temporary file first, moves that into the cache and serves it.
+     * Bodies for a file that is already being drawn wait for that drawing.
+     * @param drawing Writes the drawing; it runs on the thread writing the response
+     */
+    public StreamingResponseBody getOrDraw(String fileName, StreamingResponseBody drawing) {
+        StreamingResponseBody cached = get(fileName);
+        if (cached != null) {
+            return cached;
+        }
+        return outputStream -> serve(fileName, drawing).writeTo(outputStream);
+    }
+
+    /**
+     * Draws the file unless another request is drawing it already, in which
+     * case this waits for that drawing and serves its file. A failed drawing
+     * fails its waiters too, rather than having each of them draw again; if
+     * the file was drawn but evicted before it could be opened, the waiters
+     * start over and one of them draws it.
+     */
+    private StreamingResponseBody serve(String fileName, StreamingResponseBody drawing) throws IOException {
+        while (true) {
+            CompletableFuture<Path> flight = new CompletableFuture<>();
+            CompletableFuture<Path> first = inFlight.putIfAbsent(fileName, flight);
+            if (first != null) {
+                try {
+                    first.join();
+                } catch (CompletionException | CancellationException e) {
+                    throw new IOException("Drawing " + fileName + " failed", e.getCause() != null ? e.getCause() : e);
+                }
+                StreamingResponseBody cached = get(fileName);
+                if (cached != null) {
+                    return cached;
+                }
+                continue;
+            }
+            try {
+                // A drawing that finished between the first lookup and now has left its file behind
+                StreamingResponseBody cached = get(fileName);
+                FileChannel channel = cached == null ? put(fileName, drawing) : null;
+                flight.complete(directory.resolve(fileName));
+                return channel == null ? cached : transferring(channel);
+            } catch (Throwable e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(fileName, flight);
+            }
+        }
+    }
+
+    /**
+     * Draws into a temporary file, moves it into place and returns it opened.
+     */
+    private FileChannel put(String fileName, StreamingResponseBody drawing) throws IOException {
+        Path file = directory.resolve(fileName);
+        Path temp = Files.createTempFile(directory, TEMP_PREFIX, fileName);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                drawing.writeTo(out);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        // Open before evicting, which may pick this very file when it is larger than the bound
+        synchronized (this) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            record(file, channel.size());
+            evict();
+            return channel;
+        }
+    }
+
+    private static StreamingResponseBody transferring(FileChannel channel) {
+        return outputStream -> {
+            try (channel) {
+                long position = 0;
+                long size = channel.size();
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+    }
+
+    private synchronized void record(Path file, long size) {
+        Long previous = entries.put(file, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+    }
+
+    private synchronized void forget(Path file) {
+        Long size = entries.remove(file);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * Deletes the least recently served files until the cache fits its bound.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<Path, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(entry.getKey());
+            } catch (IOException e) {
+                log.warn("Could not evict {}", entry.getKey(), e);
+            }
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package nl.blitz.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * EnumerationExport writes enumeration results into a compact binary file of
+ * fixed-width records and reads them back through memory mapping. Fixed
+ * widths make record k addressable at header + k * recordSize, so readers can
+ * split a file between workers or jump to any rank without an index.
+ * <p>
+ * File layout (little-endian): a 32-byte header holding the magic number,
+ * format version, record layout, element count n, record size, the rank of
+ * the first record and the number of records, followed by the records.
+ * Subsets and k-subsets are stored as bitmasks of ceil(n/8) bytes (bit i set
+ * when element i is included), permutations and N-Queens solutions as n index
+ * bytes, and subset-permutations as a length byte followed by n index bytes.
+ */
+public class EnumerationExport {
+    public static final int MAGIC = 0x5A544C42;   // "BLTZ" in file order
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * How a single result is packed into a record.
+     */
+    public enum Layout {
+        BITMASK,       // ceil(n/8) bytes, bit i for element i
+        PERMUTATION,   // n bytes, one index per position
+        ARRANGEMENT;   // 1 length byte, then n bytes of which the first length are used
+
+        int recordSize(int elementCount) {
+            return switch (this) {
+                case BITMASK -> (elementCount + 7) / 8;
+                case PERMUTATION -> elementCount;
+                case ARRANGEMENT -> elementCount + 1;
+            };
+        }
+
+        /**
+         * Picks the layout matching the shape of an enumeration's results.
+         */
+        public static Layout of(RankedEnumeration enumeration) {
+            if (enumeration instanceof SubsetEnumeration || enumeration instanceof CombinationEnumeration) {
+                return BITMASK;
+            }
+            if (enumeration instanceof SubsetPermutationEnumeration) {
+                return ARRANGEMENT;
+            }
+            return PERMUTATION;
+        }
+    }
+
+    private EnumerationExport() {
+    }
+
+    /**
+     * Writes up to limit results starting at rank offset to a file.
+     * @param elementCount Number of distinct element indices (at most 255 for index layouts)
+     * @return The number of records written
+     */
+    public static long write(RankedEnumeration enumeration, int elementCount, long offset, long limit, Path path) throws IOException {
+        Layout layout = Layout.of(enumeration);
+        int recordSize = layout.recordSize(elementCount);
+        if (layout != Layout.BITMASK && elementCount > 255) {
+            throw new IllegalArgumentException("Index layouts store indices in one byte: " + elementCount);
+        }
+        // A result that does not fit its record would shift every record after it
+        boolean fits = switch (layout) {
+            case BITMASK -> elementCount <= 64;
+            case PERMUTATION -> enumeration.getMaxLength() == elementCount;
+            case ARRANGEMENT -> enumeration.getMaxLength() <= elementCount;
+        };
+        if (!fits) {
+            throw new IllegalArgumentException("Results of up to " + enumeration.getMaxLength() + " indices do not fit "
+                    + layout + " records for " + elementCount + " elements");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(HEADER_SIZE);   // The header is written last, once the count is known
+            long[] written = new long[1];
+            enumeration.forEach(offset, limit, (rank, indices, length) -> {
+                if (buffer.remaining() < recordSize) {
+                    drain(channel, buffer);
+                }
+                switch (layout) {
+                    case BITMASK -> {
+                        long mask = 0;
+                        for (int i = 0; i < length; i++) {
+                            mask |= 1L << indices[i];
+                        }
+                        for (int b = 0; b < recordSize; b++) {
+                            buffer.put((byte) (mask >>> (8 * b)));
+                        }
+                    }
+                    case PERMUTATION -> {
+                        for (int i = 0; i < length; i++) {
+                            buffer.put((byte) indices[i]);
+                        }
+                    }
+                    case ARRANGEMENT -> {
+                        buffer.put((byte) length);
+                        for (int i = 0; i < elementCount; i++) {
+                            buffer.put(i < length ? (byte) indices[i] : 0);
+                        }
+                    }
+                }
+                written[0]++;
+            });
+            drain(channel, buffer);
+
+            buffer.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .put((byte) layout.ordinal())
+                    .put((byte) 0)
+                    .putInt(elementCount)
+                    .putInt(recordSize)
+                    .putLong(offset)
+                    .putLong(written[0]);
+            buffer.flip();
+            channel.write(buffer, 0);
+            return written[0];
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Opens an export file for reading.
+     */
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    /**
+     * Memory-mapped view of an export file. Files larger than one mapping are
+     * split into several mapped segments, each holding whole records.
+     */
+    public static class Reader implements Closeable {
+        private final FileChannel channel;
+        private final Layout layout;
+        private final int elementCount;
+        private final int recordSize;
+        private final long startRank;
+        private final long count;
+        private final MappedByteBuffer[] segments;
+        private final long recordsPerSegment;
+
+        Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException("Not an enumeration export: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported export version " + version + ": " + path);
+            }
+            this.layout = Layout.values()[header.get()];
+            header.get();
+            this.elementCount = header.getInt();
+            this.recordSize = header.getInt();
+            this.startRank = header.getLong();
+            this.count = header.getLong();
+
+            this.recordsPerSegment = Math.max(1, Integer.MAX_VALUE / Math.max(1, recordSize));
+            int segmentCount = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                long first = s * recordsPerSegment;
+                long records = Math.min(recordsPerSegment, count - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * recordSize, records * recordSize);
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        public Layout getLayout() {
+            return layout;
+        }
+
+        public int getElementCount() {
+            return elementCount;
+        }
+
+        /**
+         * Returns the rank of the first record in its enumeration.
+         */
+        public long getStartRank() {
+            return startRank;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the bitmask of a record in a BITMASK file.
+         */
+        public long readMask(long index) {
+            if (layout != Layout.BITMASK) {
+                throw new IllegalStateException("Records are not bitmasks: " + layout);
+            }
+            MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+            int position = (int) (index % recordsPerSegment) * recordSize;
+            long mask = 0;
+            for (int b = 0; b < recordSize; b++) {
+                mask |= (segment.get(position + b) & 0xFFL) << (8 * b);
+            }
+            return mask;
+        }
+
+        /**
+         * Decodes a record into element indices, in the same form the
+         * enumeration produced them.
+         * @return The number of indices written
+         */
+        public int read(long index, int[] out) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Record " + index + " outside 0.." + (count - 1));
+            }
+            MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+            int position = (int) (index % recordsPerSegment) * recordSize;
+            switch (layout) {
+                case BITMASK -> {
+                    long mask = readMask(index);
+                    int length = 0;
+                    while (mask != 0) {
+                        out[length++] = Long.numberOfTrailingZeros(mask);
+                        mask &= mask - 1;
+                    }
+                    return length;
+                }
+                case PERMUTATION -> {
+                    for (int i = 0; i < elementCount; i++) {
+                        out[i] = segment.get(position + i) & 0xFF;
+                    }
+                    return elementCount;
+                }
+                default -> {
+                    int length = segment.get(position) & 0xFF;
+                    for (int i = 0; i < length; i++) {
+                        out[i] = segment.get(position + 1 + i) & 0xFF;
+                    }
+                    return length;
+                }
+            }
+        }
+
+        /**
+         * Passes every record to the consumer in file order, with its rank.
+         */
+        public void forEach(RankedEnumeration.ResultConsumer consumer) throws IOException {
+            int[] indices = new int[Math.max(1, elementCount)];
+            for (long index = 0; index < count; index++) {
+                int length = read(index, indices);
+                consumer.accept(startRank + index, indices, length);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
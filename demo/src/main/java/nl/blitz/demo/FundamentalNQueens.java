@@ -0,0 +1,206 @@
+package nl.blitz.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * FundamentalNQueens enumerates only the fundamental N-Queens solutions: one
+ * canonical representative for each equivalence class under the 8 symmetries
+ * of the square (rotations and reflections). Each class records its orbit size
+ * (1, 2, 4 or 8) and can be expanded into all of its variants on demand, so
+ * only about 1/8 of the solutions are ever stored.
+ */
+public class FundamentalNQueens {
+    private static final int MAX_BOARD_SIZE = 31;   // Columns are tracked in an int bitmask
+
+    private final int boardSize;                  // Size of the chessboard (N x N)
+    private final List<SolutionClass> classes;    // Canonical solutions in lexicographic order
+    private long totalSolutionCount;              // Sum of all orbit sizes
+
+    /**
+     * One equivalence class of solutions, represented by its lexicographically
+     * smallest member.
+     */
+    public static class SolutionClass {
+        private final int[] canonical;   // Column of the queen in each row
+        private final int orbitSize;     // Number of distinct solutions in the class
+
+        SolutionClass(int[] canonical, int orbitSize) {
+            this.canonical = canonical;
+            this.orbitSize = orbitSize;
+        }
+
+        /**
+         * Returns the canonical solution as the column of the queen in each row.
+         */
+        public List<Integer> getCanonical() {
+            return toList(canonical);
+        }
+
+        public int getOrbitSize() {
+            return orbitSize;
+        }
+
+        /**
+         * Computes all distinct solutions in this class. Nothing is cached, so
+         * expanding a class costs O(8n) and no memory once the result is dropped.
+         * @return The orbitSize distinct variants, starting with the canonical one
+         */
+        public List<List<Integer>> expand() {
+            List<List<Integer>> variants = new ArrayList<>(orbitSize);
+            List<int[]> seen = new ArrayList<>(orbitSize);
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                int[] variant = transform(canonical, symmetry);
+                boolean duplicate = false;
+                for (int[] other : seen) {
+                    if (Arrays.equals(other, variant)) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (!duplicate) {
+                    seen.add(variant);
+                    variants.add(toList(variant));
+                }
+            }
+            return variants;
+        }
+    }
+
+    /**
+     * Finds the fundamental solutions for the given board size.
+     * @param boardSize The size of the chessboard (N x N)
+     */
+    public FundamentalNQueens(int boardSize) {
+        if (boardSize < 1 || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_BOARD_SIZE + ": " + boardSize);
+        }
+        this.boardSize = boardSize;
+        this.classes = new ArrayList<>();
+        findFundamentalSolutions();
+    }
+
+    /**
+     * Runs the backtracking search. The lexicographically smallest member of a
+     * class always has its first-row queen in the left half of the board (the
+     * horizontal mirror maps column c to n-1-c), so the right half of the first
+     * row is never searched.
+     */
+    private void findFundamentalSolutions() {
+        int[] placement = new int[boardSize];
+        int all = (1 << boardSize) - 1;
+        int firstRowCols = (1 << ((boardSize + 1) / 2)) - 1;
+        for (int col = 0; col < boardSize; col++) {
+            if ((firstRowCols & (1 << col)) == 0) {
+                break;
+            }
+            placement[0] = col;
+            int bit = 1 << col;
+            search(1, bit, (bit << 1) & all, bit >>> 1, placement, all);
+        }
+    }
+
+    /**
+     * Places queens row by row using bitmasks of attacked columns and diagonals.
+     */
+    private void search(int row, int cols, int leftDiagonals, int rightDiagonals, int[] placement, int all) {
+        if (row == boardSize) {
+            recordIfCanonical(placement);
+            return;
+        }
+        int free = all & ~(cols | leftDiagonals | rightDiagonals);
+        while (free != 0) {
+            int bit = free & -free;
+            free -= bit;
+            placement[row] = Integer.numberOfTrailingZeros(bit);
+            search(row + 1, cols | bit, ((leftDiagonals | bit) << 1) & all, (rightDiagonals | bit) >>> 1, placement, all);
+        }
+    }
+
+    /**
+     * Keeps the solution only if no symmetry maps it to a lexicographically
+     * smaller one; the orbit size follows from how many symmetries fix it.
+     */
+    private void recordIfCanonical(int[] placement) {
+        int fixedBy = 0;
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            int comparison = Arrays.compare(transform(placement, symmetry), placement);
+            if (comparison < 0) {
+                return;
+            }
+            if (comparison == 0) {
+                fixedBy++;
+            }
+        }
+        int orbitSize = 8 / fixedBy;
+        classes.add(new SolutionClass(placement.clone(), orbitSize));
+        totalSolutionCount += orbitSize;
+    }
+
+    /**
+     * Applies one of the 8 symmetries of the square to a solution.
+     * @param p Column of the queen in each row
+     * @param symmetry 0 identity, 1-3 rotations by 90/180/270 degrees,
+     *                 4 horizontal mirror, 5 vertical mirror, 6 transpose, 7 anti-transpose
+     * @return The transformed solution
+     */
+    static int[] transform(int[] p, int symmetry) {
+        int n = p.length;
+        int[] q = new int[n];
+        for (int r = 0; r < n; r++) {
+            int c = p[r];
+            switch (symmetry) {
+                case 0 -> q[r] = c;
+                case 1 -> q[c] = n - 1 - r;
+                case 2 -> q[n - 1 - r] = n - 1 - c;
+                case 3 -> q[n - 1 - c] = r;
+                case 4 -> q[r] = n - 1 - c;
+                case 5 -> q[n - 1 - r] = c;
+                case 6 -> q[c] = r;
+                case 7 -> q[n - 1 - c] = n - 1 - r;
+                default -> throw new IllegalArgumentException("Unknown symmetry: " + symmetry);
+            }
+        }
+        return q;
+    }
+
+    private static List<Integer> toList(int[] placement) {
+        List<Integer> list = new ArrayList<>(placement.length);
+        for (int col : placement) {
+            list.add(col);
+        }
+        return list;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the fundamental solution classes in lexicographic order of their canonical members.
+     */
+    public List<SolutionClass> getSolutionClasses() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    public int getFundamentalCount() {
+        return classes.size();
+    }
+
+    /**
+     * Returns the number of solutions including all symmetric variants, without expanding any class.
+     */
+    public long getTotalSolutionCount() {
+        return totalSolutionCount;
+    }
+
+    /**
+     * Lazily expands every class into its variants, one class at a time.
+     */
+    public Stream<List<Integer>> streamAllSolutions() {
+        return classes.stream().flatMap(solutionClass -> solutionClass.expand().stream());
+    }
+}
@@ -0,0 +1,205 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LabelFormatter turns results given as element indices into text such as
+ * "{1, 3}" or "[red, blue]". The text of every element is computed once, and
+ * labels are assembled in a reusable char buffer, so formatting a result
+ * allocates nothing. The buffer can be written to a Writer, encoded as UTF-8
+ * into an OutputStream through a reusable byte buffer, or copied into a String
+ * when an API needs one.
+ * <p>
+ * A formatter is not thread-safe; use one per thread or per request.
+ */
+public class LabelFormatter {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final char[][] texts;   // Text of each element
+    private final String[] strings; // The same text as Strings, for APIs that take Strings
+    private final char[] open;
+    private final char[] separator;
+    private final char[] close;
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private byte[] bytes = new byte[INITIAL_CAPACITY * 3];
+    private int length;
+
+    /**
+     * Creates a formatter for the given elements.
+     * @param elements The elements; each is converted with toString once
+     */
+    public LabelFormatter(List<?> elements, String open, String separator, String close) {
+        this.texts = new char[elements.size()][];
+        this.strings = new String[elements.size()];
+        for (int i = 0; i < texts.length; i++) {
+            strings[i] = String.valueOf(elements.get(i));
+            texts[i] = strings[i].toCharArray();
+        }
+        this.open = open.toCharArray();
+        this.separator = separator.toCharArray();
+        this.close = close.toCharArray();
+    }
+
+    /**
+     * Formats like SubsetTree and SubsetPermutationTree: {a, b}.
+     */
+    public static LabelFormatter braces(List<?> elements) {
+        return new LabelFormatter(elements, "{", ", ", "}");
+    }
+
+    /**
+     * Formats like PermutationTree and ColorPermutationTree: [a, b].
+     */
+    public static LabelFormatter brackets(List<?> elements) {
+        return new LabelFormatter(elements, "[", ", ", "]");
+    }
+
+    /**
+     * Formats JSON arrays; the elements must already be JSON-encoded values.
+     */
+    public static LabelFormatter json(List<String> encodedElements) {
+        return new LabelFormatter(encodedElements, "[", ",", "]");
+    }
+
+    /**
+     * Returns the text of a single element.
+     */
+    public String element(int index) {
+        return strings[index];
+    }
+
+    /**
+     * Clears the buffer and formats one result into it.
+     */
+    public LabelFormatter format(int[] indices, int count) {
+        length = 0;
+        return appendResult(indices, count);
+    }
+
+    /**
+     * Appends one result to the buffer.
+     */
+    public LabelFormatter appendResult(int[] indices, int count) {
+        append(open);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                append(separator);
+            }
+            append(texts[indices[i]]);
+        }
+        append(close);
+        return this;
+    }
+
+    public LabelFormatter clear() {
+        length = 0;
+        return this;
+    }
+
+    public LabelFormatter append(char c) {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+        return this;
+    }
+
+    public LabelFormatter append(String text) {
+        int n = text.length();
+        ensureCapacity(length + n);
+        text.getChars(0, n, chars, length);
+        length += n;
+        return this;
+    }
+
+    /**
+     * Appends a number in decimal without going through Long.toString.
+     */
+    public LabelFormatter append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(Long.toString(value));
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(length + digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    private void append(char[] text) {
+        ensureCapacity(length + text.length);
+        System.arraycopy(text, 0, chars, length, text.length);
+        length += text.length;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(required, chars.length * 2));
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the internal buffer; only the first {@link #length()} chars are valid.
+     */
+    public char[] chars() {
+        return chars;
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        writer.write(chars, 0, length);
+    }
+
+    /**
+     * Encodes the buffer as UTF-8 into a reusable byte buffer and writes it.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (bytes.length < length * 3) {
+            bytes = new byte[Math.max(length * 3, bytes.length * 2)];
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xC0 | (c >> 6));
+                bytes[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                int codePoint = Character.toCodePoint(c, chars[++i]);
+                bytes[n++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                bytes[n++] = (byte) (0xE0 | (c >> 12));
+                bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out.write(bytes, 0, n);
+    }
+
+    /**
+     * Copies the buffer into a new String, for APIs that only accept Strings.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
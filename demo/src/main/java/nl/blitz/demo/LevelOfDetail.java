@@ -0,0 +1,71 @@
+package nl.blitz.demo;
+
+/**
+ * LevelOfDetail decides where a tree drawing stops descending. A subtree is
+ * collapsed into a single summary glyph, a grey wedge labelled with the number
+ * of leaves it holds, once it lies deeper than {@code maxDepth} or once the
+ * vertical band its nodes would share on the page is thinner than
+ * {@code minBand} points. The band starts at the page height and is divided
+ * among the children at every level, so with a band limit the number of drawn
+ * nodes per level is bounded by the page resolution instead of the tree size.
+ * <p>
+ * The trees pass the leaf count of a collapsed subtree, which they know in
+ * closed form (2^k for subsets, k! for orders), so collapsing never walks the
+ * subtree it hides.
+ */
+public record LevelOfDetail(int maxDepth, float minBand) {
+
+    /**
+     * Draws every node.
+     */
+    public static final LevelOfDetail FULL = new LevelOfDetail(Integer.MAX_VALUE, 0f);
+
+    private static final float[] SUMMARY_COLOR = {0.6f, 0.6f, 0.6f};
+    private static final float SUMMARY_WIDTH = 10f;
+    private static final float SUMMARY_HEIGHT = 8f;
+    private static final float SUMMARY_GAP = 3f;
+
+    public LevelOfDetail {
+        if (maxDepth < 0 || minBand < 0) {
+            throw new IllegalArgumentException("Depth and band limits must be non-negative: " + maxDepth + ", " + minBand);
+        }
+    }
+
+    /**
+     * Collapses everything below the given depth; the root is depth 0.
+     */
+    public static LevelOfDetail depth(int maxDepth) {
+        return new LevelOfDetail(maxDepth, 0f);
+    }
+
+    /**
+     * Collapses subtrees whose nodes would be packed closer than the given number of points.
+     */
+    public static LevelOfDetail band(float minBand) {
+        return new LevelOfDetail(Integer.MAX_VALUE, minBand);
+    }
+
+    /**
+     * Returns whether the children of a node at this depth, which share the
+     * given band, should be replaced by a summary.
+     */
+    public boolean collapses(int depth, float childBand) {
+        return depth >= maxDepth || childBand < minBand;
+    }
+
+    /**
+     * Draws the summary glyph to the right of (x, y): a wedge opening towards
+     * the hidden subtree, followed by "+count".
+     * @param leaves The number of leaves in the collapsed subtree, or -1 when
+     *               it does not fit in a long; the label then shows {@code overflowLabel}
+     */
+    public static void drawSummary(RenderBatch shapes, RenderBatch labels, float x, float y, float fontSize,
+                                   long leaves, String overflowLabel) {
+        shapes.fillPolygon(SUMMARY_COLOR,
+            x, y,
+            x + SUMMARY_WIDTH, y + SUMMARY_HEIGHT / 2,
+            x + SUMMARY_WIDTH, y - SUMMARY_HEIGHT / 2);
+        String label = leaves >= 0 ? "+" + leaves : "+" + overflowLabel;
+        labels.showText(label, x + SUMMARY_WIDTH + SUMMARY_GAP, y - fontSize / 3);
+    }
+}
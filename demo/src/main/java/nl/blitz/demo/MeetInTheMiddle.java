@@ -0,0 +1,204 @@
+package nl.blitz.demo;
+
+import java.util.List;
+
+/**
+ * MeetInTheMiddle answers subset-sum queries for element lists too long for a
+ * walk over {@link SubsetTree}, even a pruned one through {@link SubsetSearch}.
+ * The elements are split into two halves, and the sums of all 2^(n/2) subsets
+ * of each half are kept as a sorted long[]. A query then merges the two lists
+ * with one pointer walking up the left sums and one walking down the right
+ * sums, so it costs O(2^(n/2)) instead of O(2^n).
+ * <p>
+ * The sorted sums are built by doubling: the sums without an element and the
+ * same sums plus the element are both sorted, so one merge pass per element
+ * keeps the list sorted and no sort is needed. Each half holds
+ * 8·2^(n/2) bytes, which is 128 MB at n = 48, and building a half needs a
+ * second array of the same size; lists that would not fit in the heap are
+ * rejected up front.
+ */
+public class MeetInTheMiddle {
+    public static final int MAX_ELEMENTS = 48;   // 2^24 sums per half
+
+    private final long[] weights;
+    private final int leftCount;     // Elements 0..leftCount-1 form the left half
+    private final long[] leftSums;   // Sums of all subsets of the left half, ascending
+    private final long[] rightSums;  // Sums of all subsets of the right half, ascending
+
+    /**
+     * A subset with bit i of the mask set for element i, and its sum.
+     */
+    public record Solution(long mask, long sum) {
+    }
+
+    /**
+     * Prepares queries over the elements of a {@link SubsetTree}, each weighing its own value.
+     */
+    public MeetInTheMiddle(List<Integer> elements) {
+        this(elements.stream().mapToLong(Integer::longValue).toArray());
+    }
+
+    public MeetInTheMiddle(long[] weights) {
+        if (weights.length > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("At most " + MAX_ELEMENTS + " elements are supported: " + weights.length);
+        }
+        int leftCount = weights.length / 2;
+        // The left sums are kept while the right half is merged through two arrays
+        long required = Long.BYTES * ((1L << leftCount) + 2 * (1L << (weights.length - leftCount)));
+        long available = Runtime.getRuntime().maxMemory();
+        if (required > available) {
+            throw new IllegalArgumentException("Meet in the middle over " + weights.length + " elements needs "
+                + (required >> 20) + " MB of sums, but the heap allows at most " + (available >> 20) + " MB");
+        }
+        this.weights = weights.clone();
+        this.leftCount = leftCount;
+        this.leftSums = sortedSums(0, leftCount);
+        this.rightSums = sortedSums(leftCount, weights.length);
+    }
+
+    /**
+     * Lists the sums of all subsets of elements from..to-1 in ascending order.
+     */
+    private long[] sortedSums(int from, int to) {
+        long[] sums = new long[1 << (to - from)];
+        long[] merged = new long[sums.length];
+        int size = 1;
+        for (int element = from; element < to; element++) {
+            long weight = weights[element];
+            // Merge sums[0..size) with the same sums plus the weight
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < size && j < size) {
+                long shifted = sums[j] + weight;
+                if (sums[i] <= shifted) {
+                    merged[k++] = sums[i++];
+                } else {
+                    merged[k++] = shifted;
+                    j++;
+                }
+            }
+            while (i < size) {
+                merged[k++] = sums[i++];
+            }
+            while (j < size) {
+                merged[k++] = sums[j++] + weight;
+            }
+            long[] swap = sums;
+            sums = merged;
+            merged = swap;
+            size *= 2;
+        }
+        return sums;
+    }
+
+    public int getElementCount() {
+        return weights.length;
+    }
+
+    /**
+     * Returns whether some subset sums to the target.
+     */
+    public boolean exists(long target) {
+        int i = 0;
+        int j = rightSums.length - 1;
+        while (i < leftSums.length && j >= 0) {
+            long sum = leftSums[i] + rightSums[j];
+            if (sum == target) {
+                return true;
+            }
+            if (sum < target) {
+                i++;
+            } else {
+                j--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the subsets that sum to the target; equal sums within a half are
+     * matched as runs, so each matching pair of runs costs one multiplication.
+     */
+    public long count(long target) {
+        long count = 0;
+        int i = 0;
+        int j = rightSums.length - 1;
+        while (i < leftSums.length && j >= 0) {
+            long sum = leftSums[i] + rightSums[j];
+            if (sum < target) {
+                i++;
+            } else if (sum > target) {
+                j--;
+            } else {
+                long left = leftSums[i];
+                long leftRun = 0;
+                while (i < leftSums.length && leftSums[i] == left) {
+                    i++;
+                    leftRun++;
+                }
+                long right = rightSums[j];
+                long rightRun = 0;
+                while (j >= 0 && rightSums[j] == right) {
+                    j--;
+                    rightRun++;
+                }
+                count += leftRun * rightRun;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds a subset whose sum is as close to the target as possible; ties go
+     * to the smaller sum.
+     */
+    public Solution closest(long target) {
+        long bestLeft = leftSums[0];
+        long bestRight = rightSums[rightSums.length - 1];
+        long bestDistance = Long.MAX_VALUE;
+        int i = 0;
+        int j = rightSums.length - 1;
+        while (i < leftSums.length && j >= 0) {
+            long sum = leftSums[i] + rightSums[j];
+            long distance = Math.abs(sum - target);
+            if (distance < bestDistance || (distance == bestDistance && sum < bestLeft + bestRight)) {
+                bestDistance = distance;
+                bestLeft = leftSums[i];
+                bestRight = rightSums[j];
+            }
+            if (sum == target) {
+                break;
+            }
+            if (sum < target) {
+                i++;
+            } else {
+                j--;
+            }
+        }
+        long mask = findMask(0, leftCount, bestLeft) | findMask(leftCount, weights.length, bestRight);
+        return new Solution(mask, bestLeft + bestRight);
+    }
+
+    /**
+     * Finds a subset of elements from..to-1 with the given sum by stepping
+     * through the half's subsets in Gray code order, one element change per step.
+     */
+    private long findMask(int from, int to, long sum) {
+        long mask = 0;
+        long current = 0;
+        if (current == sum) {
+            return 0;
+        }
+        for (long step = 1; step < 1L << (to - from); step++) {
+            int element = from + Long.numberOfTrailingZeros(step);
+            long bit = 1L << element;
+            mask ^= bit;
+            current += (mask & bit) != 0 ? weights[element] : -weights[element];
+            if (current == sum) {
+                return mask;
+            }
+        }
+        throw new IllegalStateException("No subset of elements " + from + ".." + (to - 1) + " sums to " + sum);
+    }
+}
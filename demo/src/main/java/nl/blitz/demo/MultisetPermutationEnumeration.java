@@ -0,0 +1,162 @@
+package nl.blitz.demo;
+
+import java.util.List;
+
+/**
+ * MultisetPermutationEnumeration ranks the leaves of a {@link PermutationTree}
+ * built with distinctOnly: equal elements are interchangeable, so each
+ * arrangement appears once and there are n!/(k1!·k2!·…) of them, where the
+ * k's are how often each distinct element occurs. Results are given as the
+ * index of each distinct element's first occurrence in the element list, and
+ * come in lexicographic order of those indices.
+ * <p>
+ * The number of arrangements that start with a given element is the count of
+ * the remaining multiset, which follows from the current count as
+ * count·k/m (k copies of the element among m remaining), so ranking and
+ * unranking need no factorial or binomial tables.
+ */
+public class MultisetPermutationEnumeration implements RankedEnumeration {
+    public static final int MAX_ELEMENTS = 64;
+
+    private final int elementCount;
+    private final int[] values;          // First-occurrence index of each distinct element, ascending
+    private final int[] multiplicities;  // How often each distinct element occurs
+    private final long count;
+
+    public MultisetPermutationEnumeration(List<?> elements) {
+        if (elements.size() > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Multiset permutation enumeration supports at most " + MAX_ELEMENTS + " elements: " + elements.size());
+        }
+        this.elementCount = elements.size();
+        int[] firstIndex = new int[elementCount];
+        int[] occurrences = new int[elementCount];
+        int distinct = 0;
+        for (int i = 0; i < elementCount; i++) {
+            int value = elements.indexOf(elements.get(i));
+            if (value == i) {
+                firstIndex[distinct++] = i;
+            }
+            occurrences[value]++;
+        }
+        this.values = new int[distinct];
+        this.multiplicities = new int[distinct];
+        for (int d = 0; d < distinct; d++) {
+            values[d] = firstIndex[d];
+            multiplicities[d] = occurrences[firstIndex[d]];
+        }
+
+        // Build the count up one element at a time: adding a copy of value d to m
+        // elements multiplies it by (m+1)/(copies of d so far + 1). The last step
+        // of unranking multiplies by up to n before dividing, so keep that in range too.
+        long total = 1;
+        int[] added = new int[distinct];
+        try {
+            int m = 0;
+            for (int d = 0; d < distinct; d++) {
+                while (added[d] < multiplicities[d]) {
+                    m++;
+                    added[d]++;
+                    total = Math.multiplyExact(total, m) / added[d];
+                }
+            }
+            Math.multiplyExact(total, Math.max(elementCount, 1));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many arrangements to rank in a long: " + elements);
+        }
+        this.count = total;
+    }
+
+    /**
+     * Returns how many distinct elements there are.
+     */
+    public int getDistinctCount() {
+        return values.length;
+    }
+
+    @Override
+    public int getMaxLength() {
+        return elementCount;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public int unrank(long rank, int[] out) {
+        checkRank(rank);
+        int[] remaining = multiplicities.clone();
+        long block = count;   // Arrangements of the remaining elements
+        for (int position = 0; position < elementCount; position++) {
+            int m = elementCount - position;
+            for (int d = 0; ; d++) {
+                if (remaining[d] == 0) {
+                    continue;
+                }
+                long below = block * remaining[d] / m;   // Arrangements starting with d
+                if (rank < below) {
+                    out[position] = values[d];
+                    remaining[d]--;
+                    block = below;
+                    break;
+                }
+                rank -= below;
+            }
+        }
+        return elementCount;
+    }
+
+    /**
+     * Returns the rank of an arrangement, given as first-occurrence indices.
+     */
+    public long rank(int[] arrangement) {
+        int[] remaining = multiplicities.clone();
+        long block = count;
+        long rank = 0;
+        for (int position = 0; position < elementCount; position++) {
+            int m = elementCount - position;
+            for (int d = 0; ; d++) {
+                if (remaining[d] == 0) {
+                    continue;
+                }
+                long below = block * remaining[d] / m;
+                if (values[d] == arrangement[position]) {
+                    remaining[d]--;
+                    block = below;
+                    break;
+                }
+                rank += below;
+            }
+        }
+        return rank;
+    }
+
+    @Override
+    public int successor(long rank, int[] out, int length) {
+        // The next-permutation step already skips equal neighbours, so it steps
+        // straight to the next distinct arrangement
+        int i = length - 2;
+        while (i >= 0 && out[i] >= out[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return unrank(rank + 1, out);
+        }
+        int j = length - 1;
+        while (out[j] <= out[i]) {
+            j--;
+        }
+        swap(out, i, j);
+        for (int left = i + 1, right = length - 1; left < right; left++, right--) {
+            swap(out, left, right);
+        }
+        return length;
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+}
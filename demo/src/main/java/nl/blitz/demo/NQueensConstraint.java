@@ -0,0 +1,70 @@
+package nl.blitz.demo;
+
+import java.util.Map;
+
+/**
+ * NQueensConstraint places one queen per row (variable) in a column (value)
+ * such that no two queens share a column or a diagonal. Queens can be
+ * pre-placed by fixing the column of a row.
+ */
+public class NQueensConstraint implements PlacementConstraint {
+    protected final int boardSize;                  // Size of the chessboard (N x N)
+    private final Map<Integer, Integer> preplaced;  // Fixed column per row
+
+    public NQueensConstraint(int boardSize) {
+        this(boardSize, Map.of());
+    }
+
+    /**
+     * @param boardSize The size of the chessboard (N x N), at most 64
+     * @param preplaced Column of each pre-placed queen, keyed by row; rows and
+     *                  columns must lie on the board
+     */
+    public NQueensConstraint(int boardSize, Map<Integer, Integer> preplaced) {
+        if (boardSize < 1 || boardSize > 64) {
+            throw new IllegalArgumentException("Board size must be between 1 and 64: " + boardSize);
+        }
+        for (Map.Entry<Integer, Integer> queen : preplaced.entrySet()) {
+            int row = queen.getKey();
+            int col = queen.getValue();
+            if (row < 0 || row >= boardSize || col < 0 || col >= boardSize) {
+                throw new IllegalArgumentException("Pre-placed queen at row " + row + ", column " + col
+                    + " is off the " + boardSize + "x" + boardSize + " board");
+            }
+        }
+        this.boardSize = boardSize;
+        this.preplaced = Map.copyOf(preplaced);
+    }
+
+    @Override
+    public int getVariableCount() {
+        return boardSize;
+    }
+
+    @Override
+    public int getValueCount() {
+        return boardSize;
+    }
+
+    @Override
+    public long initialDomain(int row) {
+        Integer col = preplaced.get(row);
+        if (col != null) {
+            return 1L << col;
+        }
+        return boardSize == 64 ? -1L : (1L << boardSize) - 1;
+    }
+
+    @Override
+    public long conflicts(int row, int col, int otherRow) {
+        long attacked = 1L << col;
+        int distance = Math.abs(otherRow - row);
+        if (col + distance < boardSize) {
+            attacked |= 1L << (col + distance);
+        }
+        if (col - distance >= 0) {
+            attacked |= 1L << (col - distance);
+        }
+        return attacked;
+    }
+}
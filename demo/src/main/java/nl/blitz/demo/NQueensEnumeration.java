@@ -0,0 +1,125 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+
+/**
+ * NQueensEnumeration lists N-Queens solutions in lexicographic order (the order
+ * of {@link NQueensSubsetTree}) straight from a bitmask backtracker, without
+ * storing them. Solutions have no closed-form rank, so seeking to an offset
+ * skips solutions during the search instead of materializing them; the count
+ * comes from the Dancing Links solver.
+ */
+public class NQueensEnumeration implements RankedEnumeration {
+    public static final int MAX_BOARD_SIZE = 31;   // Columns are tracked in an int bitmask
+
+    // Nodes of the full backtracking tree (partial placements, root included) by board size
+    private static final long[] SEARCH_NODES = {
+        1, 2, 3, 6, 17, 54, 153, 552, 2057, 8394, 35539, 166926, 856189,
+        4674890, 27358553, 171129072, 1141190303L
+    };
+    private static final double SEARCH_GROWTH = 0.42;   // Past the table, row n multiplies the nodes by about 0.42·n
+
+    private final int boardSize;
+    private long count = -1;   // Solution count, computed on first use
+
+    /**
+     * Estimates the nodes a search of the whole board visits. N-Queens has no
+     * closed form, so the sizes up to 16 are measured and larger boards are
+     * extrapolated from the growth of the last few; the Dancing Links count
+     * and the solver of {@link NQueensSubsetTree} search trees of the same order.
+     * @return The estimate, or Long.MAX_VALUE when it does not fit
+     */
+    public static long estimateSearchNodes(int boardSize) {
+        if (boardSize < SEARCH_NODES.length) {
+            return SEARCH_NODES[Math.max(boardSize, 0)];
+        }
+        double nodes = SEARCH_NODES[SEARCH_NODES.length - 1];
+        for (int n = SEARCH_NODES.length; n <= boardSize; n++) {
+            nodes *= SEARCH_GROWTH * n;
+        }
+        return nodes >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) nodes;
+    }
+
+    public NQueensEnumeration(int boardSize) {
+        if (boardSize < 1 || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_BOARD_SIZE + ": " + boardSize);
+        }
+        this.boardSize = boardSize;
+    }
+
+    @Override
+    public int getMaxLength() {
+        return boardSize;
+    }
+
+    @Override
+    public synchronized long count() {
+        if (count < 0) {
+            count = new NQueensExactCover(boardSize).countSolutions();
+        }
+        return count;
+    }
+
+    @Override
+    public int unrank(long rank, int[] out) {
+        checkRank(rank);
+        int[][] found = new int[1][];
+        try {
+            forEach(rank, 1, (r, indices, length) -> found[0] = indices.clone());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        System.arraycopy(found[0], 0, out, 0, boardSize);
+        return boardSize;
+    }
+
+    @Override
+    public void forEach(long offset, long limit, ResultConsumer consumer) throws IOException {
+        if (offset < 0 || limit <= 0) {
+            return;
+        }
+        Search search = new Search(offset, limit, consumer);
+        search.run(0, 0, 0, 0);
+    }
+
+    /**
+     * One lexicographic pass that skips the first offset solutions and stops after limit more.
+     */
+    private class Search {
+        final int all = (1 << boardSize) - 1;
+        final int[] placement = new int[boardSize];
+        final long offset;
+        final long end;
+        final ResultConsumer consumer;
+        long rank;
+
+        Search(long offset, long limit, ResultConsumer consumer) {
+            this.offset = offset;
+            this.end = offset + Math.min(limit, Long.MAX_VALUE - offset);
+            this.consumer = consumer;
+        }
+
+        /**
+         * @return false once enough solutions have been passed on
+         */
+        boolean run(int row, int cols, int leftDiagonals, int rightDiagonals) throws IOException {
+            if (row == boardSize) {
+                if (rank >= offset) {
+                    consumer.accept(rank, placement, boardSize);
+                }
+                rank++;
+                return rank < end;
+            }
+            int free = all & ~(cols | leftDiagonals | rightDiagonals);
+            while (free != 0) {
+                int bit = free & -free;
+                free -= bit;
+                placement[row] = Integer.numberOfTrailingZeros(bit);
+                if (!run(row + 1, cols | bit, ((leftDiagonals | bit) << 1) & all, (rightDiagonals | bit) >>> 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
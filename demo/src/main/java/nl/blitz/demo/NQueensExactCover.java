@@ -0,0 +1,61 @@
+package nl.blitz.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NQueensExactCover solves N-Queens as an exact cover problem on
+ * {@link DancingLinks}. Every square is a matrix row covering its board row
+ * and column (primary columns, covered exactly once) and its two diagonals
+ * (secondary columns, covered at most once).
+ */
+public class NQueensExactCover {
+    private final int boardSize;          // Size of the chessboard (N x N)
+    private final DancingLinks matrix;
+
+    public NQueensExactCover(int boardSize) {
+        if (boardSize < 1) {
+            throw new IllegalArgumentException("Board size must be positive: " + boardSize);
+        }
+        this.boardSize = boardSize;
+        int diagonals = 2 * boardSize - 1;
+        this.matrix = new DancingLinks(2 * boardSize, 2 * diagonals);
+
+        // Row id = row * boardSize + col
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                matrix.addRow(
+                    row,
+                    boardSize + col,
+                    2 * boardSize + row + col,
+                    2 * boardSize + diagonals + row - col + boardSize - 1);
+            }
+        }
+    }
+
+    public long countSolutions() {
+        return matrix.countSolutions();
+    }
+
+    /**
+     * Finds all solutions as the column of the queen in each row, in search order.
+     */
+    public List<List<Integer>> findSolutions() {
+        List<List<Integer>> solutions = new ArrayList<>();
+        matrix.solve(rows -> {
+            Integer[] placement = new Integer[boardSize];
+            for (int id : rows) {
+                placement[id / boardSize] = id % boardSize;
+            }
+            solutions.add(List.of(placement));
+        });
+        return solutions;
+    }
+
+    /**
+     * Returns the number of link updates performed by the last search.
+     */
+    public long getUpdates() {
+        return matrix.getUpdates();
+    }
+}
@@ -1,16 +1,16 @@
 package nl.blitz.demo;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 
 /**
  * NQueensSubsetTree class solves the N-Queens problem and visualizes the solutions.
@@ -21,10 +21,26 @@ public class NQueensSubsetTree {
     private int boardSize;                    // Size of the chessboard (N x N)
     private List<List<Integer>> solutions;    // List to store all valid solutions
     private static final float PAGE_MARGIN = 30f;     // Margin around the page
+    private static final float PAGE_WIDTH = PDRectangle.LETTER.getWidth();    // Letter page width
+    private static final float PAGE_HEIGHT = PDRectangle.LETTER.getHeight();  // Letter page height
     private static final float SQUARE_SIZE = 40f;     // Size of each chessboard square
     private static final float FONT_SIZE = 12f;       // Font size for text
+    private static final float COMPACT_BOARD_SIZE = 90f;  // Board size in the compact layout
+    private static final float COMPACT_GAP = 16f;         // Gap between boards in the compact layout
+    private static final float COMPACT_FONT_SIZE = 8f;    // Font size for labels in the compact layout
     private static final float[] QUEEN_COLOR = {0f, 0f, 0f};    // Black color for queens
     private static final float[] BOARD_COLOR = {0.8f, 0.8f, 0.8f};  // Light gray for board
+    private static final float[] LIGHT_SQUARE_COLOR = {1f, 1f, 1f}; // White for alternating squares
+    private static final float[] BORDER_COLOR = {0f, 0f, 0f};       // Black square borders
+    private static final float[] CROWN_COLOR = {1f, 1f, 1f};        // White crown on queens
+    private static final int PARALLEL_MIN_PAGES = 32;   // Shorter books are drawn on the calling thread
+
+    /**
+     * A board on a page of the solution book: the solution's index and the
+     * y coordinate of the board's lower edge.
+     */
+    private record BoardPlacement(int solution, float y) {
+    }
 
     /**
      * Constructor initializes the N-Queens solver with a given board size.
@@ -36,6 +52,32 @@ public class NQueensSubsetTree {
         findSolutions();
     }
 
+    /**
+     * Constructor that solves a placement problem (N-Queens with pre-placed queens,
+     * super-queens, N-rooks with blocked cells, ...) with the generic constraint
+     * engine instead of the built-in backtracker. Variables are rows and values
+     * are columns. Solutions are sorted lexicographically, which is the order the
+     * built-in backtracker produces for plain N-Queens.
+     * @param constraint Constraint plugin with as many values as variables
+     */
+    public NQueensSubsetTree(PlacementConstraint constraint) {
+        if (constraint.getVariableCount() != constraint.getValueCount()) {
+            throw new IllegalArgumentException("Board must be square: " + constraint.getVariableCount()
+                + " rows, " + constraint.getValueCount() + " columns");
+        }
+        this.boardSize = constraint.getVariableCount();
+        this.solutions = new ArrayList<>();
+        List<int[]> found = new ConstraintSearch(constraint).findAllSolutions();
+        found.sort(Arrays::compare);
+        for (int[] placement : found) {
+            List<Integer> solution = new ArrayList<>(boardSize);
+            for (int col : placement) {
+                solution.add(col);
+            }
+            solutions.add(solution);
+        }
+    }
+
     /**
      * Initiates the search for all valid N-Queens solutions.
      * This method starts the recursive backtracking process from the first row.
@@ -98,126 +140,249 @@ public class NQueensSubsetTree {
      * @throws IOException If there's an error creating or writing to the PDF file
      */
     public void saveSolutionsToPDF(String filename) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            renderSolutions(renderer);
+            renderer.save(filename);
+        }
+    }
+
+    /**
+     * Draws all found solutions to the given renderer, starting a new page
+     * whenever the current one is full. Long PDF books are drawn a page per
+     * task on the common fork-join pool and added to the document in order.
+     * @param renderer Backend to draw to
+     * @throws IOException If there's an error writing to the backend
+     */
+    public void renderSolutions(Renderer renderer) throws IOException {
+        List<List<BoardPlacement>> pages = layoutPages();
+        if (renderer instanceof PdfRenderer pdfRenderer && pages.size() >= PARALLEL_MIN_PAGES) {
+            renderPagesInParallel(pdfRenderer, pages);
+            return;
+        }
+        
+        // Primitives are grouped by graphics state and written once per page
+        RenderBatch batch = new RenderBatch(FONT_SIZE);
+        for (List<BoardPlacement> page : pages) {
+            renderer.beginPage(PAGE_WIDTH, PAGE_HEIGHT);
+            drawPage(batch, page);
+            batch.flush(renderer);
+            renderer.endPage();
+        }
+    }
+
+    /**
+     * Draws and compresses the pages in parallel, each into a stream of its
+     * own, then adds them to the document in page order.
+     */
+    private void renderPagesInParallel(PdfRenderer renderer, List<List<BoardPlacement>> pages) throws IOException {
+        List<PdfRenderer.PreparedPage> prepared;
+        try {
+            prepared = pages.parallelStream()
+                .map(page -> {
+                    RenderBatch batch = new RenderBatch(FONT_SIZE);
+                    drawPage(batch, page);
+                    try {
+                        return renderer.preparePage(PAGE_WIDTH, PAGE_HEIGHT, batch);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (PdfRenderer.PreparedPage page : prepared) {
+            renderer.addPage(page);
+        }
+    }
+
+    /**
+     * Splits the solutions into pages. The first board is centered on the
+     * first page; boards follow upwards until the next one would cross the
+     * top margin. A book whose last page is full ends with an empty page,
+     * as it did before pages were laid out up front.
+     * @return Per page, the boards on it
+     */
+    private List<List<BoardPlacement>> layoutPages() {
+        float boardTotalSize = boardSize * SQUARE_SIZE;
+        float startY = (PAGE_HEIGHT - boardTotalSize) / 2;
+        
+        List<List<BoardPlacement>> pages = new ArrayList<>();
+        List<BoardPlacement> page = new ArrayList<>();
+        pages.add(page);
+        for (int solIndex = 0; solIndex < solutions.size(); solIndex++) {
+            page.add(new BoardPlacement(solIndex, startY));
+            
+            // Move to next solution position
+            startY += boardTotalSize + 50;
             
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
+            // Start a new page if the current one is full
+            if (startY + boardTotalSize > PAGE_HEIGHT - PAGE_MARGIN) {
+                page = new ArrayList<>();
+                pages.add(page);
+                startY = PAGE_MARGIN;
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Queues the boards of one page, each with its solution number.
+     */
+    private void drawPage(RenderBatch batch, List<BoardPlacement> page) {
+        // Boards are centered horizontally
+        float startX = (PAGE_WIDTH - boardSize * SQUARE_SIZE) / 2;
+        for (BoardPlacement board : page) {
+            drawBoard(batch, startX, board.y(), solutions.get(board.solution()));
+            batch.showText("Solution " + (board.solution() + 1), startX, board.y() - 20);
+        }
+    }
+
+    /**
+     * Generates a compact PDF that lays out many small boards per page in a grid.
+     * The board background is drawn once into a reusable form object that every
+     * board on every page refers to, so each solution only adds its queen positions
+     * and label to the page.
+     * @param filename Path where the PDF will be saved
+     * @throws IOException If there's an error creating or writing to the PDF file
+     */
+    public void saveCompactSolutionsToPDF(String filename) throws IOException {
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            float squareSize = COMPACT_BOARD_SIZE / boardSize;
+            float boardTotalSize = squareSize * boardSize;
+            float cellWidth = boardTotalSize + COMPACT_GAP;
+            float cellHeight = boardTotalSize + COMPACT_GAP + COMPACT_FONT_SIZE;
+            int columns = Math.max(1, (int) ((PAGE_WIDTH - 2 * PAGE_MARGIN + COMPACT_GAP) / cellWidth));
+            int rows = Math.max(1, (int) ((PAGE_HEIGHT - 2 * PAGE_MARGIN + COMPACT_GAP) / cellHeight));
+            int boardsPerPage = columns * rows;
             
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
+            // Center the grid horizontally
+            float gridWidth = columns * cellWidth - COMPACT_GAP;
+            float gridStartX = (PAGE_WIDTH - gridWidth) / 2;
+            float gridTopY = PAGE_HEIGHT - PAGE_MARGIN;
             
-            // Calculate board size and position to center it on the page
-            float boardTotalSize = boardSize * SQUARE_SIZE;
-            float startX = (pageWidth - boardTotalSize) / 2;
-            float startY = (pageHeight - boardTotalSize) / 2;
+            RenderBatch batch = new RenderBatch(COMPACT_FONT_SIZE);
+            PDFormXObject boardForm = null;
             
-            // Draw each solution on the PDF
             for (int solIndex = 0; solIndex < solutions.size(); solIndex++) {
-                List<Integer> solution = solutions.get(solIndex);
-                
-                // Draw the chessboard with queens
-                drawBoard(contentStream, startX, startY, solution);
-                
-                // Add solution number above the board
-                contentStream.beginText();
-                contentStream.newLineAtOffset(startX, startY - 20);
-                contentStream.showText("Solution " + (solIndex + 1));
-                contentStream.endText();
+                int slot = solIndex % boardsPerPage;
+                if (slot == 0) {
+                    if (solIndex > 0) {
+                        batch.flush(renderer);
+                        renderer.endPage();
+                    }
+                    renderer.beginPage(PAGE_WIDTH, PAGE_HEIGHT);
+                    if (boardForm == null) {
+                        // Draw the empty board once and reuse it for every solution
+                        drawBoardBackground(batch, 0f, 0f, squareSize);
+                        boardForm = renderer.createForm(boardTotalSize, boardTotalSize, batch);
+                    }
+                }
                 
-                // Move to next solution position
-                startY += boardTotalSize + 50;
+                float startX = gridStartX + (slot % columns) * cellWidth;
+                float startY = gridTopY - (slot / columns + 1) * cellHeight + COMPACT_GAP + COMPACT_FONT_SIZE;
+                renderer.drawForm(boardForm, startX, startY);
                 
-                // Create new page if current page is full
-                if (startY + boardTotalSize > pageHeight - PAGE_MARGIN) {
-                    contentStream.close();
-                    page = new PDPage();
-                    document.addPage(page);
-                    contentStream = new PDPageContentStream(document, page);
-                    contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
-                    startY = PAGE_MARGIN;
+                List<Integer> solution = solutions.get(solIndex);
+                for (int row = 0; row < boardSize; row++) {
+                    drawQueen(batch, startX + solution.get(row) * squareSize, startY + row * squareSize, squareSize, false);
                 }
+                batch.showText("#" + (solIndex + 1), startX, startY - COMPACT_FONT_SIZE);
             }
             
-            contentStream.close();
-            document.save(filename);
+            if (solutions.isEmpty()) {
+                renderer.beginPage(PAGE_WIDTH, PAGE_HEIGHT);
+            }
+            batch.flush(renderer);
+            renderer.endPage();
+            renderer.save(filename);
         }
     }
 
     /**
      * Draws a single chessboard with queens placed according to the solution.
-     * @param contentStream PDF content stream to draw on
+     * @param batch Render batch collecting the board primitives
      * @param startX Starting X coordinate of the board
      * @param startY Starting Y coordinate of the board
      * @param solution List of column positions for queens in each row
-     * @throws IOException If there's an error drawing to the PDF
      */
-    private void drawBoard(PDPageContentStream contentStream, float startX, float startY, List<Integer> solution) throws IOException {
-        // Draw squares
+    private void drawBoard(RenderBatch batch, float startX, float startY, List<Integer> solution) {
+        drawBoardBackground(batch, startX, startY, SQUARE_SIZE);
+        
+        // Draw queens
+        for (int row = 0; row < boardSize; row++) {
+            drawQueen(batch, startX + solution.get(row) * SQUARE_SIZE, startY + row * SQUARE_SIZE, SQUARE_SIZE, true);
+        }
+    }
+
+    /**
+     * Draws the empty chessboard. Squares and borders are queued on the batch so that
+     * all dark squares, all light squares and all borders each become a single path.
+     * @param batch Render batch collecting the board primitives
+     * @param startX Starting X coordinate of the board
+     * @param startY Starting Y coordinate of the board
+     * @param squareSize Size of each square
+     */
+    private void drawBoardBackground(RenderBatch batch, float startX, float startY, float squareSize) {
+        // Fill squares with alternating colors
         for (int row = 0; row < boardSize; row++) {
             for (int col = 0; col < boardSize; col++) {
-                float x = startX + col * SQUARE_SIZE;
-                float y = startY + row * SQUARE_SIZE;
-                
-                // Draw square border
-                contentStream.setStrokingColor(0f, 0f, 0f); // Black border
-                contentStream.setLineWidth(0.5f);
-                contentStream.addRect(x, y, SQUARE_SIZE, SQUARE_SIZE);
-                contentStream.stroke();
-                
-                // Fill square with alternating colors
-                if ((row + col) % 2 == 0) {
-                    contentStream.setNonStrokingColor(BOARD_COLOR[0], BOARD_COLOR[1], BOARD_COLOR[2]);
-                } else {
-                    contentStream.setNonStrokingColor(1f, 1f, 1f); // White
-                }
-                contentStream.addRect(x, y, SQUARE_SIZE, SQUARE_SIZE);
-                contentStream.fill();
-                
-                // Draw queen if present
-                if (solution.get(row) == col) {
-                    // Draw a diamond shape for the queen
-                    float centerX = x + SQUARE_SIZE / 2;
-                    float centerY = y + SQUARE_SIZE / 2;
-                    float size = SQUARE_SIZE * 0.4f;
-                    
-                    contentStream.setStrokingColor(QUEEN_COLOR[0], QUEEN_COLOR[1], QUEEN_COLOR[2]);
-                    contentStream.setLineWidth(2f);
-                    contentStream.setNonStrokingColor(QUEEN_COLOR[0], QUEEN_COLOR[1], QUEEN_COLOR[2]);
-                    
-                    // Draw diamond
-                    contentStream.moveTo(centerX, centerY - size);
-                    contentStream.lineTo(centerX + size, centerY);
-                    contentStream.lineTo(centerX, centerY + size);
-                    contentStream.lineTo(centerX - size, centerY);
-                    contentStream.closePath();
-                    contentStream.fill();
-                    
-                    // Draw crown on top
-                    contentStream.setStrokingColor(1f, 1f, 1f); // White for crown
-                    contentStream.setLineWidth(1f);
-                    
-                    float crownY = centerY - size;
-                    float crownWidth = size * 1.2f;
-                    
-                    // Draw crown base
-                    contentStream.moveTo(centerX - crownWidth/2, crownY);
-                    contentStream.lineTo(centerX + crownWidth/2, crownY);
-                    
-                    // Draw crown points
-                    for (int i = 0; i < 3; i++) {
-                        float pointX = centerX - crownWidth/2 + (crownWidth * i / 2);
-                        contentStream.lineTo(pointX, crownY - size * 0.3f);
-                        contentStream.lineTo(pointX + crownWidth/2, crownY);
-                    }
-                    
-                    contentStream.stroke();
-                }
+                float x = startX + col * squareSize;
+                float y = startY + row * squareSize;
+                batch.fillRect((row + col) % 2 == 0 ? BOARD_COLOR : LIGHT_SQUARE_COLOR, x, y, squareSize, squareSize);
+            }
+        }
+        
+        // Draw square borders
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                batch.strokeRect(BORDER_COLOR, 0.5f, startX + col * squareSize, startY + row * squareSize, squareSize, squareSize);
             }
         }
     }
 
+    /**
+     * Draws a queen as a filled diamond, optionally with a crown, into the square at (x, y).
+     * @param batch Render batch collecting the queen primitives
+     * @param x X coordinate of the square's lower-left corner
+     * @param y Y coordinate of the square's lower-left corner
+     * @param squareSize Size of the square
+     * @param withCrown Whether to draw the crown; left out on small boards
+     */
+    private void drawQueen(RenderBatch batch, float x, float y, float squareSize, boolean withCrown) {
+        float centerX = x + squareSize / 2;
+        float centerY = y + squareSize / 2;
+        float size = squareSize * 0.4f;
+        
+        // Draw diamond
+        batch.fillPolygon(QUEEN_COLOR,
+            centerX, centerY - size,
+            centerX + size, centerY,
+            centerX, centerY + size,
+            centerX - size, centerY);
+        
+        if (!withCrown) {
+            return;
+        }
+        
+        // Draw crown on top: base followed by three points
+        float crownY = centerY - size;
+        float crownWidth = size * 1.2f;
+        float[] crown = new float[16];
+        crown[0] = centerX - crownWidth/2;
+        crown[1] = crownY;
+        crown[2] = centerX + crownWidth/2;
+        crown[3] = crownY;
+        for (int i = 0; i < 3; i++) {
+            float pointX = centerX - crownWidth/2 + (crownWidth * i / 2);
+            crown[4 + i * 4] = pointX;
+            crown[5 + i * 4] = crownY - size * 0.3f;
+            crown[6 + i * 4] = pointX + crownWidth/2;
+            crown[7 + i * 4] = crownY;
+        }
+        batch.strokePolyline(CROWN_COLOR, 1f, crown);
+    }
+
     /**
      * Returns the total number of solutions found.
      * @return Number of valid N-Queens solutions
@@ -49,6 +49,11 @@ public class NQueensSubsetTreeTest {
             System.out.println("Generating PDF for " + boardSize + "x" + boardSize + " board...");
             nQueens.saveSolutionsToPDF(pdfPath);
             
+            // Generate the compact grid layout alongside it
+            Path compactPath = outputDir.resolve("n_queens_" + boardSize + "x" + boardSize + "_compact.pdf");
+            nQueens.saveCompactSolutionsToPDF(compactPath.toString());
+            System.out.println("Compact PDF size: " + Files.size(compactPath) + " bytes");
+            
             // Verify and print results
             if (Files.exists(pdfFilePath)) {
                 System.out.println("Successfully generated PDF: " + pdfFilename);
@@ -68,6 +73,17 @@ public class NQueensSubsetTreeTest {
                         System.out.println("✗ Some solutions might be missing!");
                     }
                 }
+                
+                // Compare with the symmetry-reduced search
+                FundamentalNQueens fundamental = new FundamentalNQueens(boardSize);
+                long expanded = fundamental.streamAllSolutions().count();
+                System.out.println("Fundamental solutions: " + fundamental.getFundamentalCount()
+                    + " (expanding to " + expanded + ")");
+                if (expanded == totalSolutions && fundamental.getTotalSolutionCount() == totalSolutions) {
+                    System.out.println("✓ Orbits cover all solutions!");
+                } else {
+                    System.out.println("✗ Orbit expansion does not match the full search!");
+                }
             } else {
                 System.err.println("Error: Failed to generate PDF for " + boardSize + "x" + boardSize + " board!");
             }
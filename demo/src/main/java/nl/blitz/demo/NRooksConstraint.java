@@ -0,0 +1,46 @@
+package nl.blitz.demo;
+
+/**
+ * NRooksConstraint places one rook per row (variable) in a column (value)
+ * such that no two rooks share a column, avoiding blocked cells.
+ */
+public class NRooksConstraint implements PlacementConstraint {
+    private final int boardSize;         // Size of the board (N x N)
+    private final long[] blockedCells;   // Bitset of blocked columns per row
+
+    /**
+     * @param boardSize The size of the board (N x N), at most 64
+     * @param blockedCells Bitset of blocked columns for each row
+     */
+    public NRooksConstraint(int boardSize, long[] blockedCells) {
+        if (boardSize < 1 || boardSize > 64) {
+            throw new IllegalArgumentException("Board size must be between 1 and 64: " + boardSize);
+        }
+        if (blockedCells.length != boardSize) {
+            throw new IllegalArgumentException("Expected blocked cells for " + boardSize + " rows, got " + blockedCells.length);
+        }
+        this.boardSize = boardSize;
+        this.blockedCells = blockedCells.clone();
+    }
+
+    @Override
+    public int getVariableCount() {
+        return boardSize;
+    }
+
+    @Override
+    public int getValueCount() {
+        return boardSize;
+    }
+
+    @Override
+    public long initialDomain(int row) {
+        long all = boardSize == 64 ? -1L : (1L << boardSize) - 1;
+        return all & ~blockedCells[row];
+    }
+
+    @Override
+    public long conflicts(int row, int col, int otherRow) {
+        return 1L << col;
+    }
+}
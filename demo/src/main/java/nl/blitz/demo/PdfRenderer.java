@@ -0,0 +1,262 @@
+package nl.blitz.demo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Matrix;
+
+/**
+ * PdfRenderer draws into a PDFBox document, one content stream per page.
+ * Call {@link #save(String)} or {@link #save(OutputStream)} once all pages are
+ * finished and {@link #close()} to release the document.
+ * <p>
+ * Pages can also be drawn apart from the document with
+ * {@link #preparePage(float, float, RenderBatch)}, which does not touch the
+ * document and may run on several threads at once, and then added in page
+ * order with {@link #addPage(PreparedPage)} on one thread.
+ */
+public class PdfRenderer implements Renderer, Closeable {
+    private static final int PAGE_BUFFER_SIZE = 16 * 1024;
+    // Backs the streams of the resource holders of prepared pages; those streams are never written or read
+    private static final ScratchFile UNUSED_SCRATCH = ScratchFile.getMainMemoryOnlyInstance();
+
+    private final PDDocument document;
+    private PDPage page;                         // Page currently being drawn
+    private PDPageContentStream contentStream;   // Content stream of the current page
+    private float textX;                         // Start of the previous text line
+    private float textY;
+
+    public PdfRenderer() {
+        this.document = new PDDocument();
+    }
+
+    /**
+     * Renderer drawing a single prepared page, with no document behind it.
+     */
+    private PdfRenderer(PDPageContentStream contentStream) {
+        this.document = null;
+        this.contentStream = contentStream;
+    }
+
+    /**
+     * A page whose content stream has been written and compressed, waiting to
+     * be added to the document.
+     */
+    public static final class PreparedPage {
+        private final PDRectangle mediaBox;
+        private final byte[] contents;         // Flate-compressed content stream
+        private final PDResources resources;   // Fonts the contents refer to
+
+        private PreparedPage(PDRectangle mediaBox, byte[] contents, PDResources resources) {
+            this.mediaBox = mediaBox;
+            this.contents = contents;
+            this.resources = resources;
+        }
+    }
+
+    /**
+     * Draws the primitives queued on the batch into a page that is not part
+     * of the document yet. Only the page's own buffers and resources are
+     * written, never the document, so pages can be prepared on several
+     * threads at once, each with its own batch, and compressing them is
+     * spread over those threads too.
+     * @param width Page width in points
+     * @param height Page height in points
+     * @param batch Primitives to draw; the batch is flushed
+     * @return The page, to be added with {@link #addPage(PreparedPage)}
+     * @throws IOException If there's an error writing the content stream
+     */
+    public PreparedPage preparePage(float width, float height, RenderBatch batch) throws IOException {
+        // The form only carries the resources; its stream is never written
+        PDFormXObject resourceHolder = new PDFormXObject(new COSStream(UNUSED_SCRATCH));
+        resourceHolder.setResources(new PDResources());
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        // Operators are written a few bytes at a time; the deflater wants them in blocks.
+        // The stream only needs a document for fonts to subset, and the standard 14 fonts are never subset.
+        try (PDPageContentStream pageStream = new PDPageContentStream(null, resourceHolder,
+                new BufferedOutputStream(new DeflaterOutputStream(contents, deflater), PAGE_BUFFER_SIZE))) {
+            batch.flush(new PdfRenderer(pageStream));
+        } finally {
+            deflater.end();
+        }
+        return new PreparedPage(new PDRectangle(width, height), contents.toByteArray(), resourceHolder.getResources());
+    }
+
+    /**
+     * Appends a prepared page to the document. Its content stream is copied
+     * as is, without compressing it again.
+     */
+    public void addPage(PreparedPage prepared) throws IOException {
+        COSStream contents = document.getDocument().createCOSStream();
+        contents.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        try (OutputStream out = contents.createRawOutputStream()) {
+            out.write(prepared.contents);
+        }
+        PDPage preparedPage = new PDPage(prepared.mediaBox);
+        preparedPage.getCOSObject().setItem(COSName.CONTENTS, contents);
+        preparedPage.setResources(prepared.resources);
+        document.addPage(preparedPage);
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    public PDPage getPage() {
+        return page;
+    }
+
+    public PDPageContentStream getContentStream() {
+        return contentStream;
+    }
+
+    @Override
+    public void beginPage(float width, float height) throws IOException {
+        page = new PDPage(new PDRectangle(width, height));
+        document.addPage(page);
+        contentStream = new PDPageContentStream(document, page);
+    }
+
+    @Override
+    public void endPage() throws IOException {
+        contentStream.close();
+        contentStream = null;
+    }
+
+    @Override
+    public void setStrokeStyle(float r, float g, float b, float lineWidth) throws IOException {
+        contentStream.setStrokingColor(r, g, b);
+        contentStream.setLineWidth(lineWidth);
+    }
+
+    @Override
+    public void setFillColor(float r, float g, float b) throws IOException {
+        contentStream.setNonStrokingColor(r, g, b);
+    }
+
+    @Override
+    public void moveTo(float x, float y) throws IOException {
+        contentStream.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) throws IOException {
+        contentStream.lineTo(x, y);
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) throws IOException {
+        contentStream.curveTo(x1, y1, x2, y2, x3, y3);
+    }
+
+    @Override
+    public void addRect(float x, float y, float width, float height) throws IOException {
+        contentStream.addRect(x, y, width, height);
+    }
+
+    @Override
+    public void closePath() throws IOException {
+        contentStream.closePath();
+    }
+
+    @Override
+    public void stroke() throws IOException {
+        contentStream.stroke();
+    }
+
+    @Override
+    public void fill() throws IOException {
+        contentStream.fill();
+    }
+
+    @Override
+    public void beginText(float fontSize, float r, float g, float b) throws IOException {
+        // PDF paints text with the fill colour, so set it for this run
+        contentStream.setNonStrokingColor(r, g, b);
+        contentStream.setFont(PDType1Font.HELVETICA, fontSize);
+        contentStream.beginText();
+        textX = 0f;
+        textY = 0f;
+    }
+
+    @Override
+    public void showText(String text, float x, float y) throws IOException {
+        // Text positions inside one text object are relative to the previous line start
+        contentStream.newLineAtOffset(x - textX, y - textY);
+        contentStream.showText(text);
+        textX = x;
+        textY = y;
+    }
+
+    @Override
+    public void endText() throws IOException {
+        contentStream.endText();
+    }
+
+    /**
+     * Creates a reusable form XObject of the given size holding the primitives
+     * queued on the batch. The batch is flushed into the form.
+     * @param width Width of the form's bounding box
+     * @param height Height of the form's bounding box
+     * @param batch Primitives to draw into the form, in form coordinates
+     * @return The form, to be placed with {@link #drawForm(PDFormXObject, float, float)}
+     * @throws IOException If there's an error writing the form
+     */
+    public PDFormXObject createForm(float width, float height, RenderBatch batch) throws IOException {
+        PDFormXObject form = new PDFormXObject(document);
+        form.setBBox(new PDRectangle(width, height));
+        form.setResources(new PDResources());
+        
+        PDPageContentStream pageStream = contentStream;
+        try (PDPageContentStream formStream = new PDPageContentStream(document, form,
+                form.getContentStream().createOutputStream(COSName.FLATE_DECODE))) {
+            contentStream = formStream;
+            batch.flush(this);
+        } finally {
+            contentStream = pageStream;
+        }
+        return form;
+    }
+
+    /**
+     * Places a form XObject on the current page with its origin at (x, y).
+     */
+    public void drawForm(PDFormXObject form, float x, float y) throws IOException {
+        contentStream.saveGraphicsState();
+        contentStream.transform(Matrix.getTranslateInstance(x, y));
+        contentStream.drawForm(form);
+        contentStream.restoreGraphicsState();
+    }
+
+    public void save(String filename) throws IOException {
+        document.save(filename);
+    }
+
+    public void save(OutputStream outputStream) throws IOException {
+        document.save(outputStream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (contentStream != null) {
+            contentStream.close();
+        }
+        document.close();
+    }
+}
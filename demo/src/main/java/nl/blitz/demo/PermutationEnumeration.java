@@ -0,0 +1,100 @@
+package nl.blitz.demo;
+
+/**
+ * PermutationEnumeration ranks the leaves of {@link PermutationTree} (and
+ * {@link ColorPermutationTree}): children pick the remaining elements in
+ * their original order, so leaves are the permutations of the element indices
+ * in lexicographic order. Ranks use the factorial number system.
+ */
+public class PermutationEnumeration implements RankedEnumeration {
+    public static final int MAX_ELEMENTS = 20;   // 20! is the largest factorial that fits in a long
+
+    private final int elementCount;
+    private final long[] factorials;
+
+    public PermutationEnumeration(int elementCount) {
+        if (elementCount < 0 || elementCount > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Permutation enumeration supports 0 to " + MAX_ELEMENTS + " elements: " + elementCount);
+        }
+        this.elementCount = elementCount;
+        this.factorials = new long[elementCount + 1];
+        factorials[0] = 1;
+        for (int i = 1; i <= elementCount; i++) {
+            factorials[i] = factorials[i - 1] * i;
+        }
+    }
+
+    @Override
+    public int getMaxLength() {
+        return elementCount;
+    }
+
+    @Override
+    public long count() {
+        return factorials[elementCount];
+    }
+
+    @Override
+    public int unrank(long rank, int[] out) {
+        checkRank(rank);
+        long used = 0;   // Bitset of indices already placed
+        for (int position = 0; position < elementCount; position++) {
+            long block = factorials[elementCount - 1 - position];
+            int skip = (int) (rank / block);
+            rank %= block;
+            // Take the (skip+1)-th unused index
+            int index = -1;
+            for (int k = 0; k <= skip; k++) {
+                index++;
+                while ((used & (1L << index)) != 0) {
+                    index++;
+                }
+            }
+            used |= 1L << index;
+            out[position] = index;
+        }
+        return elementCount;
+    }
+
+    /**
+     * Returns the rank of a permutation of the element indices.
+     */
+    public long rank(int[] permutation) {
+        long rank = 0;
+        long used = 0;
+        for (int position = 0; position < elementCount; position++) {
+            int index = permutation[position];
+            int smallerUnused = Long.bitCount(~used & ((1L << index) - 1));
+            rank += smallerUnused * factorials[elementCount - 1 - position];
+            used |= 1L << index;
+        }
+        return rank;
+    }
+
+    @Override
+    public int successor(long rank, int[] out, int length) {
+        // Standard next-permutation step
+        int i = length - 2;
+        while (i >= 0 && out[i] >= out[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return unrank(rank + 1, out);
+        }
+        int j = length - 1;
+        while (out[j] <= out[i]) {
+            j--;
+        }
+        swap(out, i, j);
+        for (int left = i + 1, right = length - 1; left < right; left++, right--) {
+            swap(out, left, right);
+        }
+        return length;
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+}
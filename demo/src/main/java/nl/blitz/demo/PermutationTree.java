@@ -1,5 +1,6 @@
 package nl.blitz.demo;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,6 +8,7 @@ public class PermutationTree<T> {
     private Node root;
     private List<T> elements;
     private List<String> permutationMapping;
+    private LabelFormatter formatter;
 
     private static class Node {
         String label;
@@ -21,49 +23,63 @@ public class PermutationTree<T> {
     }
 
     public PermutationTree(List<T> elements) {
+        this(elements, false);
+    }
+
+    /**
+     * Builds the tree, optionally treating equal elements as interchangeable.
+     * @param distinctOnly When true, each branch offers every distinct element
+     *                     once, so [a, a, b] gives the 3 arrangements
+     *                     aab, aba, baa instead of 3! with repeats
+     */
+    public PermutationTree(List<T> elements, boolean distinctOnly) {
         this.elements = elements;
         this.permutationMapping = new ArrayList<>();
-        this.root = buildPermutationTree(new ArrayList<>(), elements);
+        this.formatter = LabelFormatter.brackets(elements);
+
+        // Group equal elements under the index of their first occurrence
+        int[] remaining = new int[elements.size()];
+        for (int i = 0; i < elements.size(); i++) {
+            remaining[distinctOnly ? elements.indexOf(elements.get(i)) : i]++;
+        }
+        this.root = buildPermutationTree(new int[elements.size()], 0, remaining);
         generateMapping();
     }
 
-    private Node buildPermutationTree(List<T> currentPermutation, List<T> remainingElements) {
-        if (remainingElements.isEmpty()) {
-            return new Node(formatPermutation(currentPermutation), true, 0);
+    /**
+     * Builds the tree over element indices: the current permutation lives in
+     * one shared array and the copies left of each element in a count array,
+     * so only the leaf labels are allocated. Equal elements share one count,
+     * which is what keeps equal siblings from being generated twice.
+     */
+    private Node buildPermutationTree(int[] currentPermutation, int length, int[] remaining) {
+        int left = elements.size() - length;
+        if (left == 0) {
+            return new Node(formatter.format(currentPermutation, length).toString(), true, 0);
         }
 
-        // Create a decision node
-        Node node = new Node("Choose next element", false, remainingElements.size());
-        
-        // Create a child for each remaining element
-        for (int i = 0; i < remainingElements.size(); i++) {
-            List<T> newPermutation = new ArrayList<>(currentPermutation);
-            List<T> newRemaining = new ArrayList<>(remainingElements);
-            
-            // Add the chosen element to the permutation
-            T chosenElement = newRemaining.remove(i);
-            newPermutation.add(chosenElement);
-            
-            // Create child node
-            node.children[i] = buildPermutationTree(newPermutation, newRemaining);
+        // Create a decision node with a child per distinct remaining element
+        int choices = 0;
+        for (int count : remaining) {
+            if (count > 0) {
+                choices++;
+            }
         }
+        Node node = new Node("Choose next element", false, choices);
         
-        return node;
-    }
-
-    private String formatPermutation(List<T> permutation) {
-        if (permutation.isEmpty()) {
-            return "[]";
-        }
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < permutation.size(); i++) {
-            sb.append(permutation.get(i));
-            if (i < permutation.size() - 1) {
-                sb.append(", ");
+        // Create a child for each remaining element, in their original order
+        int child = 0;
+        for (int i = 0; i < remaining.length; i++) {
+            if (remaining[i] == 0) {
+                continue;
             }
+            currentPermutation[length] = i;
+            remaining[i]--;
+            node.children[child++] = buildPermutationTree(currentPermutation, length + 1, remaining);
+            remaining[i]++;
         }
-        sb.append("]");
-        return sb.toString();
+        
+        return node;
     }
 
     private void generateMapping() {
@@ -82,61 +98,80 @@ public class PermutationTree<T> {
     }
 
     public void printTree() {
-        System.out.println("Permutation Tree:");
-        printTreeRecursive(root, "", true);
+        TreePrinter.toConsole(this::writeTree);
     }
 
-    private void printTreeRecursive(Node node, String prefix, boolean isLast) {
+    /**
+     * Writes the tree dump to any Appendable, such as a file Writer or a StringBuilder.
+     */
+    public void printTree(Appendable out) throws IOException {
+        TreePrinter printer = new TreePrinter(out);
+        writeTree(printer);
+        printer.flush();
+    }
+
+    private void writeTree(TreePrinter printer) throws IOException {
+        printer.println("Permutation Tree:");
+        printTreeRecursive(printer, root, true);
+    }
+
+    private void printTreeRecursive(TreePrinter printer, Node node, boolean isLast) throws IOException {
         if (node != null) {
-            String nodeLabel = node.isLeaf ? 
-                "Permutation: " + node.label : 
-                node.label;
-            System.out.println(prefix + (isLast ? "\\-- " : "+-- ") + nodeLabel);
+            if (node.isLeaf) {
+                printer.node(isLast, "Permutation: ", node.label);
+            } else {
+                printer.node(isLast, node.label);
+            }
             
-            String newPrefix = prefix + (isLast ? "    " : "|   ");
+            printer.indent(isLast);
             for (int i = 0; i < node.children.length; i++) {
-                printTreeRecursive(node.children[i], newPrefix, i == node.children.length - 1);
+                printTreeRecursive(printer, node.children[i], i == node.children.length - 1);
             }
+            printer.outdent();
         }
     }
 
     public void printTraversals() {
-        System.out.println("\nPermutation Traversals (only showing actual permutations):");
-        System.out.print("Preorder: ");
-        preorderTraversal(root);
-        System.out.println();
-        System.out.print("Postorder: ");
-        postorderTraversal(root);
-        System.out.println();
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nPermutation Traversals (only showing actual permutations):");
+            printer.print("Preorder: ");
+            preorderTraversal(printer, root);
+            printer.newLine();
+            printer.print("Postorder: ");
+            postorderTraversal(printer, root);
+            printer.newLine();
+        });
     }
 
-    private void preorderTraversal(Node node) {
+    private void preorderTraversal(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
             if (node.isLeaf) {
-                System.out.print(node.label + " ");
+                printer.print(node.label).print(" ");
             }
             for (Node child : node.children) {
-                preorderTraversal(child);
+                preorderTraversal(printer, child);
             }
         }
     }
 
-    private void postorderTraversal(Node node) {
+    private void postorderTraversal(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
             for (Node child : node.children) {
-                postorderTraversal(child);
+                postorderTraversal(printer, child);
             }
             if (node.isLeaf) {
-                System.out.print(node.label + " ");
+                printer.print(node.label).print(" ");
             }
         }
     }
 
     public void printPermutationMapping() {
-        System.out.println("\nPermutation Mapping:");
-        for (int i = 0; i < permutationMapping.size(); i++) {
-            System.out.println(i + ": " + permutationMapping.get(i));
-        }
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nPermutation Mapping:");
+            for (int i = 0; i < permutationMapping.size(); i++) {
+                printer.print(i).print(": ").println(permutationMapping.get(i));
+            }
+        });
     }
 
     public int getPermutationCount() {
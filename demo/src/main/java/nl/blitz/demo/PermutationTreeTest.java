@@ -35,5 +35,12 @@ public class PermutationTreeTest {
         System.out.println("\nStatistics:");
         System.out.println("Total number of permutations: " + permutationTree.getPermutationCount());
         System.out.println("Expected number of permutations (6P4): " + (6*5*4*3));
+
+        // Repeated elements: equal siblings are skipped while building
+        List<String> letters = Arrays.asList("a", "a", "b", "b", "c");
+        PermutationTree<String> multisetTree = new PermutationTree<>(letters, true);
+        multisetTree.printPermutationMapping();
+        System.out.println("Distinct arrangements of " + letters + ": " + multisetTree.getPermutationCount()
+            + " (expected 5!/(2!*2!) = " + new MultisetPermutationEnumeration(letters).count() + ")");
     }
 } 
\ No newline at end of file
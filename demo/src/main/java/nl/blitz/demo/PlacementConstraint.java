@@ -0,0 +1,27 @@
+package nl.blitz.demo;
+
+/**
+ * PlacementConstraint is a constraint plugin for {@link ConstraintSearch}.
+ * A problem has a number of variables (e.g. board rows) that each take one
+ * value (e.g. a column). Domains are bitsets, so at most 64 values are
+ * supported. Constraints are binary: assigning one variable rules out values
+ * of the others.
+ */
+public interface PlacementConstraint {
+
+    int getVariableCount();
+
+    int getValueCount();
+
+    /**
+     * Returns the values the variable may take before anything is assigned,
+     * as a bitset. Blocked cells and pre-placed pieces are expressed here.
+     */
+    long initialDomain(int variable);
+
+    /**
+     * Returns the values of {@code otherVariable} that conflict with assigning
+     * {@code value} to {@code variable}, as a bitset.
+     */
+    long conflicts(int variable, int value, int otherVariable);
+}
@@ -0,0 +1,135 @@
+package nl.blitz.demo;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * PngRenderer rasterizes a single page into a {@link BufferedImage} and writes
+ * it as PNG when the page ends. Page coordinates in points are multiplied by
+ * the scale factor and y is flipped to the image's top-left origin.
+ */
+public class PngRenderer implements Renderer {
+    private final OutputStream out;
+    private final float scale;            // Pixels per point
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private float pageHeight;
+    private final Path2D.Float path;      // Path being built
+    private Color strokeColor;
+    private BasicStroke stroke;
+    private Color fillColor;
+
+    public PngRenderer(OutputStream out, float scale) {
+        this.out = out;
+        this.scale = scale;
+        this.path = new Path2D.Float();
+    }
+
+    @Override
+    public void beginPage(float width, float height) {
+        if (image != null) {
+            throw new IllegalStateException("PNG output holds a single page");
+        }
+        pageHeight = height;
+        image = new BufferedImage(Math.round(width * scale), Math.round(height * scale), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+    }
+
+    @Override
+    public void endPage() throws IOException {
+        graphics.dispose();
+        ImageIO.write(image, "png", out);
+        out.flush();
+    }
+
+    @Override
+    public void setStrokeStyle(float r, float g, float b, float lineWidth) {
+        strokeColor = new Color(r, g, b);
+        stroke = new BasicStroke(lineWidth * scale);
+    }
+
+    @Override
+    public void setFillColor(float r, float g, float b) {
+        fillColor = new Color(r, g, b);
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        path.moveTo(px(x), py(y));
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        path.lineTo(px(x), py(y));
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        path.curveTo(px(x1), py(y1), px(x2), py(y2), px(x3), py(y3));
+    }
+
+    @Override
+    public void addRect(float x, float y, float width, float height) {
+        path.moveTo(px(x), py(y));
+        path.lineTo(px(x + width), py(y));
+        path.lineTo(px(x + width), py(y + height));
+        path.lineTo(px(x), py(y + height));
+        path.closePath();
+    }
+
+    @Override
+    public void closePath() {
+        path.closePath();
+    }
+
+    @Override
+    public void stroke() {
+        graphics.setColor(strokeColor);
+        graphics.setStroke(stroke);
+        graphics.draw(path);
+        path.reset();
+    }
+
+    @Override
+    public void fill() {
+        graphics.setColor(fillColor);
+        graphics.fill(path);
+        path.reset();
+    }
+
+    @Override
+    public void beginText(float fontSize, float r, float g, float b) {
+        graphics.setColor(new Color(r, g, b));
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.round(fontSize * scale)));
+    }
+
+    @Override
+    public void showText(String text, float x, float y) {
+        graphics.drawString(text, px(x), py(y));
+    }
+
+    @Override
+    public void endText() {
+    }
+
+    private float px(float x) {
+        return x * scale;
+    }
+
+    private float py(float y) {
+        return (pageHeight - y) * scale;
+    }
+}
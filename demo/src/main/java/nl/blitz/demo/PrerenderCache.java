@@ -0,0 +1,154 @@
+package nl.blitz.demo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * PrerenderCache keeps the drawings most visitors ask for, such as the
+ * 4-element subset tree the start page loads, rendered in memory. Once the
+ * application is ready the configured outputs are rendered in parallel on the
+ * common fork-join pool, and a background thread renders them again at a
+ * fixed interval, swapping each one in only once it is complete. The render
+ * endpoints serve a hit straight from the cached bytes, without building the
+ * tree or taking an admission slot.
+ * <p>
+ * Outputs are listed in {@code codecompass.prerender.outputs} as
+ * {@code family:size:format}, where size may be a range such as {@code 3..6}
+ * and format is pdf, svg or png. Only plain {@code ?size=n} renders at full
+ * detail are cached; anything else is drawn per request.
+ */
+@Component
+public class PrerenderCache {
+    private static final Logger log = LoggerFactory.getLogger(PrerenderCache.class);
+    private static final Map<String, MediaType> FORMATS = Map.of(
+        "pdf", MediaType.APPLICATION_PDF,
+        "svg", MediaType.parseMediaType("image/svg+xml"),
+        "png", MediaType.IMAGE_PNG);
+
+    /**
+     * One cached output.
+     */
+    record Key(TreeApiController.Family family, int size, MediaType type) {
+    }
+
+    private final List<Key> outputs;
+    private final long refreshMillis;
+    private final Map<Key, byte[]> rendered = new ConcurrentHashMap<>();
+    private ScheduledExecutorService refresher;
+
+    public PrerenderCache(@Value("${codecompass.prerender.outputs:}") List<String> outputs,
+                          @Value("${codecompass.prerender.refresh-interval-ms:3600000}") long refreshMillis) {
+        this.outputs = parse(outputs);
+        this.refreshMillis = refreshMillis;
+    }
+
+    /**
+     * Returns a body writing the cached drawing, or null when it is not cached.
+     */
+    public StreamingResponseBody get(TreeApiController.Family family, int size, MediaType type) {
+        byte[] content = rendered.get(new Key(family, size, type));
+        if (content == null) {
+            return null;
+        }
+        return outputStream -> outputStream.write(content);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (outputs.isEmpty()) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prerender-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = refreshMillis > 0 ? refreshMillis : Long.MAX_VALUE;
+        refresher.scheduleWithFixedDelay(this::renderAll, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Renders every configured output; one that fails is logged and keeps
+     * its previous bytes, if any.
+     */
+    void renderAll() {
+        long start = System.nanoTime();
+        LongAdder bytes = new LongAdder();
+        outputs.parallelStream().forEach(key -> {
+            try {
+                byte[] content = render(key);
+                rendered.put(key, content);
+                bytes.add(content.length);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not pre-render {} {} of size {}", key.family().path, key.type(), key.size(), e);
+            }
+        });
+        log.info("Pre-rendered {} outputs ({} KB) in {} ms", outputs.size(), bytes.sum() / 1024,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static byte[] render(Key key) throws IOException {
+        List<Object> labels = TreeApiController.resolveElements(key.family(), null, key.size());
+        TreeApiController.TreeDrawing drawing = TreeApiController.drawing(key.family(), labels, LevelOfDetail.FULL);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TreeApiController.encode(drawing, key.type()).writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Expands entries such as {@code subset:3..6:pdf} into one key per size.
+     */
+    private static List<Key> parse(List<String> outputs) {
+        List<Key> keys = new ArrayList<>();
+        for (String output : outputs) {
+            if (output.isBlank()) {
+                continue;
+            }
+            String[] parts = output.trim().split(":");
+            if (parts.length != 3 || !FORMATS.containsKey(parts[2])) {
+                throw new IllegalArgumentException("Expected family:size:format with format pdf, svg or png: " + output);
+            }
+            TreeApiController.Family family = TreeApiController.Family.fromPath(parts[0]);
+            if (family.maxRenderSize == 0 || (family == TreeApiController.Family.N_QUEENS && !parts[2].equals("pdf"))) {
+                throw new IllegalArgumentException("The " + family.path + " family has no " + parts[2] + " drawing");
+            }
+            String[] range = parts[1].split("\\.\\.");
+            int from = Integer.parseInt(range[0]);
+            int to = Integer.parseInt(range[range.length - 1]);
+            if (from < 0 || to > family.maxRenderSize) {
+                throw new IllegalArgumentException("The " + family.path + " family renders at most "
+                    + family.maxRenderSize + " elements: " + output);
+            }
+            for (int size = from; size <= to; size++) {
+                keys.add(new Key(family, size, FORMATS.get(parts[2])));
+            }
+        }
+        return keys;
+    }
+}
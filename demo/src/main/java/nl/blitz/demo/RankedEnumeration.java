@@ -0,0 +1,77 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+
+/**
+ * RankedEnumeration describes the leaves of one of the tree families in the
+ * order the tree visits them, without building the tree. Results are written
+ * as element indices into a caller-supplied buffer; rank 0 is the first leaf.
+ * Any rank can be reached directly with {@link #unrank(long, int[])}, and
+ * {@link #forEach(long, long, ResultConsumer)} seeks once and then steps with
+ * {@link #successor(long, int[], int)}, so a page deep into the results costs
+ * no more than the first page.
+ */
+public interface RankedEnumeration {
+
+    /**
+     * Receives one result: its rank and the first {@code length} entries of {@code indices}.
+     * The buffer is reused for the next result.
+     */
+    @FunctionalInterface
+    interface ResultConsumer {
+        void accept(long rank, int[] indices, int length) throws IOException;
+    }
+
+    /**
+     * Returns the size of the buffer a single result needs.
+     */
+    int getMaxLength();
+
+    /**
+     * Returns the number of results.
+     */
+    long count();
+
+    /**
+     * Writes the result at the given rank into {@code out}.
+     * @return The number of indices written
+     */
+    int unrank(long rank, int[] out);
+
+    /**
+     * Replaces the result at {@code rank} held in {@code out} by the result at
+     * {@code rank + 1}. Implementations override this with an incremental step.
+     * @return The number of indices of the new result
+     */
+    default int successor(long rank, int[] out, int length) {
+        return unrank(rank + 1, out);
+    }
+
+    /**
+     * Passes up to {@code limit} results starting at rank {@code offset} to the consumer.
+     */
+    default void forEach(long offset, long limit, ResultConsumer consumer) throws IOException {
+        long end = Math.min(count(), offset + Math.min(limit, Long.MAX_VALUE - offset));
+        if (offset < 0 || offset >= end) {
+            return;
+        }
+        int[] indices = new int[getMaxLength()];
+        int length = unrank(offset, indices);
+        for (long rank = offset; ; rank++) {
+            consumer.accept(rank, indices, length);
+            if (rank + 1 >= end) {
+                break;
+            }
+            length = successor(rank, indices, length);
+        }
+    }
+
+    /**
+     * Checks that a rank lies within the enumeration.
+     */
+    default void checkRank(long rank) {
+        if (rank < 0 || rank >= count()) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " outside 0.." + (count() - 1));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RenderBatch is a render pipeline stage that sits between the tree/board
+ * layout code and a {@link Renderer}. Primitives are collected per graphics
+ * state (paint mode, colour, line width) and flushed as one path per state,
+ * so a tree with hundreds of edges emits two colour changes and two stroke
+ * operators instead of one of each per edge. Text is collected as well and
+ * written in a single text run after all paths.
+ */
+public class RenderBatch {
+    private static final float CIRCLE_KAPPA = 0.552f; // Bezier control point factor for circles
+    private static final float[] BLACK = {0f, 0f, 0f};  // Default text colour
+
+    private static final byte MOVE = 0;
+    private static final byte LINE = 1;
+    private static final byte CURVE = 2;
+    private static final byte RECT = 3;
+    private static final byte CLOSE = 4;
+
+    private final float fontSize;                  // Font size used for all queued text
+    private final float[] textColor;               // Colour of all queued text
+    private final Map<Style, PathBuffer> groups;   // Paths per graphics state, in first-use order
+    private final List<String> texts;              // Queued text strings
+    private float[] textPositions;                 // x, y pairs for each queued text
+    private int primitiveCount;                    // Primitives added since the last flush
+
+    /**
+     * Graphics state a group of primitives shares.
+     */
+    private record Style(boolean fill, float r, float g, float b, float lineWidth) {
+    }
+
+    /**
+     * Growable path made of opcodes and their coordinates.
+     */
+    private static class PathBuffer {
+        byte[] ops = new byte[64];
+        float[] coords = new float[256];
+        int opCount;
+        int coordCount;
+
+        void add(byte op, float... values) {
+            if (opCount == ops.length) {
+                ops = Arrays.copyOf(ops, opCount * 2);
+            }
+            ops[opCount++] = op;
+            if (coordCount + values.length > coords.length) {
+                coords = Arrays.copyOf(coords, Math.max(coords.length * 2, coordCount + values.length));
+            }
+            System.arraycopy(values, 0, coords, coordCount, values.length);
+            coordCount += values.length;
+        }
+    }
+
+    /**
+     * Creates a batch whose text is painted black.
+     */
+    public RenderBatch(float fontSize) {
+        this(fontSize, BLACK);
+    }
+
+    /**
+     * Creates a batch whose text is painted in the given color.
+     */
+    public RenderBatch(float fontSize, float[] textColor) {
+        this.fontSize = fontSize;
+        this.textColor = textColor;
+        this.groups = new LinkedHashMap<>();
+        this.texts = new ArrayList<>();
+        this.textPositions = new float[32];
+    }
+
+    /**
+     * Queues a straight stroked line.
+     */
+    public void strokeLine(float[] color, float lineWidth, float x1, float y1, float x2, float y2) {
+        PathBuffer path = group(false, color, lineWidth);
+        path.add(MOVE, x1, y1);
+        path.add(LINE, x2, y2);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues a stroked circle outline.
+     */
+    public void strokeCircle(float[] color, float lineWidth, float x, float y, float radius) {
+        addCircle(group(false, color, lineWidth), x, y, radius);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues a filled circle.
+     */
+    public void fillCircle(float[] color, float x, float y, float radius) {
+        addCircle(group(true, color, 0f), x, y, radius);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues a stroked rectangle outline.
+     */
+    public void strokeRect(float[] color, float lineWidth, float x, float y, float width, float height) {
+        group(false, color, lineWidth).add(RECT, x, y, width, height);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues a filled rectangle.
+     */
+    public void fillRect(float[] color, float x, float y, float width, float height) {
+        group(true, color, 0f).add(RECT, x, y, width, height);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues a closed, filled polygon given as x, y pairs.
+     */
+    public void fillPolygon(float[] color, float... points) {
+        PathBuffer path = group(true, color, 0f);
+        addPolyline(path, points);
+        path.add(CLOSE);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues an open, stroked polyline given as x, y pairs.
+     */
+    public void strokePolyline(float[] color, float lineWidth, float... points) {
+        addPolyline(group(false, color, lineWidth), points);
+        primitiveCount++;
+    }
+
+    /**
+     * Queues a text string whose baseline starts at (x, y).
+     */
+    public void showText(String text, float x, float y) {
+        int index = texts.size();
+        if (index * 2 + 2 > textPositions.length) {
+            textPositions = Arrays.copyOf(textPositions, textPositions.length * 2);
+        }
+        textPositions[index * 2] = x;
+        textPositions[index * 2 + 1] = y;
+        texts.add(text);
+        primitiveCount++;
+    }
+
+    /**
+     * Returns the number of primitives queued since the last flush.
+     */
+    public int getPrimitiveCount() {
+        return primitiveCount;
+    }
+
+    /**
+     * Writes all queued primitives to the renderer, one path per graphics
+     * state followed by one text run, and clears the batch.
+     * @param renderer Backend to write to
+     * @throws IOException If there's an error writing to the backend
+     */
+    public void flush(Renderer renderer) throws IOException {
+        for (Map.Entry<Style, PathBuffer> entry : groups.entrySet()) {
+            Style style = entry.getKey();
+            PathBuffer path = entry.getValue();
+            if (style.fill()) {
+                renderer.setFillColor(style.r(), style.g(), style.b());
+            } else {
+                renderer.setStrokeStyle(style.r(), style.g(), style.b(), style.lineWidth());
+            }
+            writePath(renderer, path);
+            if (style.fill()) {
+                renderer.fill();
+            } else {
+                renderer.stroke();
+            }
+        }
+
+        if (!texts.isEmpty()) {
+            renderer.beginText(fontSize, textColor[0], textColor[1], textColor[2]);
+            for (int i = 0; i < texts.size(); i++) {
+                renderer.showText(texts.get(i), textPositions[i * 2], textPositions[i * 2 + 1]);
+            }
+            renderer.endText();
+        }
+
+        groups.clear();
+        texts.clear();
+        primitiveCount = 0;
+    }
+
+    private PathBuffer group(boolean fill, float[] color, float lineWidth) {
+        return groups.computeIfAbsent(new Style(fill, color[0], color[1], color[2], lineWidth), style -> new PathBuffer());
+    }
+
+    private void addPolyline(PathBuffer path, float[] points) {
+        path.add(MOVE, points[0], points[1]);
+        for (int i = 2; i + 1 < points.length; i += 2) {
+            path.add(LINE, points[i], points[i + 1]);
+        }
+    }
+
+    private void addCircle(PathBuffer path, float x, float y, float radius) {
+        float k = radius * CIRCLE_KAPPA;
+        path.add(MOVE, x + radius, y);
+        path.add(CURVE, x + radius, y + k, x + k, y + radius, x, y + radius);
+        path.add(CURVE, x - k, y + radius, x - radius, y + k, x - radius, y);
+        path.add(CURVE, x - radius, y - k, x - k, y - radius, x, y - radius);
+        path.add(CURVE, x + k, y - radius, x + radius, y - k, x + radius, y);
+    }
+
+    private void writePath(Renderer renderer, PathBuffer path) throws IOException {
+        float[] c = path.coords;
+        int p = 0;
+        for (int i = 0; i < path.opCount; i++) {
+            switch (path.ops[i]) {
+                case MOVE -> {
+                    renderer.moveTo(c[p], c[p + 1]);
+                    p += 2;
+                }
+                case LINE -> {
+                    renderer.lineTo(c[p], c[p + 1]);
+                    p += 2;
+                }
+                case CURVE -> {
+                    renderer.curveTo(c[p], c[p + 1], c[p + 2], c[p + 3], c[p + 4], c[p + 5]);
+                    p += 6;
+                }
+                case RECT -> {
+                    renderer.addRect(c[p], c[p + 1], c[p + 2], c[p + 3]);
+                    p += 4;
+                }
+                case CLOSE -> renderer.closePath();
+                default -> throw new IllegalStateException("Unknown path operation: " + path.ops[i]);
+            }
+        }
+    }
+}
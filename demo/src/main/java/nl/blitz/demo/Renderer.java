@@ -0,0 +1,68 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+
+/**
+ * Renderer is the drawing backend the tree and board layouts write to.
+ * Coordinates follow the PDF convention: the origin is the lower-left corner
+ * of the page and y grows upwards; backends with a top-left origin flip y.
+ * Paths are built with the path methods and painted with {@link #stroke()}
+ * or {@link #fill()} using the most recently set style.
+ */
+public interface Renderer {
+
+    /**
+     * Starts a new page of the given size in points.
+     */
+    void beginPage(float width, float height) throws IOException;
+
+    /**
+     * Finishes the current page.
+     */
+    void endPage() throws IOException;
+
+    /**
+     * Sets the colour and line width used by the next {@link #stroke()}.
+     */
+    void setStrokeStyle(float r, float g, float b, float lineWidth) throws IOException;
+
+    /**
+     * Sets the colour used by the next {@link #fill()}.
+     */
+    void setFillColor(float r, float g, float b) throws IOException;
+
+    void moveTo(float x, float y) throws IOException;
+
+    void lineTo(float x, float y) throws IOException;
+
+    void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) throws IOException;
+
+    void addRect(float x, float y, float width, float height) throws IOException;
+
+    void closePath() throws IOException;
+
+    /**
+     * Strokes and clears the current path.
+     */
+    void stroke() throws IOException;
+
+    /**
+     * Fills and clears the current path.
+     */
+    void fill() throws IOException;
+
+    /**
+     * Starts a run of text strings drawn with the given font size and colour.
+     * The colour applies to the run only; text never picks up the fill colour
+     * of earlier paths, whatever the backend.
+     */
+    void beginText(float fontSize, float r, float g, float b) throws IOException;
+
+    /**
+     * Draws a text string whose baseline starts at (x, y). Only valid between
+     * {@link #beginText(float, float, float, float)} and {@link #endText()}.
+     */
+    void showText(String text, float x, float y) throws IOException;
+
+    void endText() throws IOException;
+}
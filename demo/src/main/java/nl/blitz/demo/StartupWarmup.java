@@ -0,0 +1,71 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * StartupWarmup draws and enumerates a few small trees while the application
+ * context starts, so the first request does not pay for loading the
+ * renderers, PDFBox and the enumerations. The first PDF is the expensive one:
+ * PDFBox reads the metrics of the standard fonts and scans the system fonts
+ * for substitutes, which stalled the first PDF request on a fresh dyno for
+ * most of a second.
+ * <p>
+ * The warmup runs once all singletons exist, before the web server accepts
+ * connections. It also runs during the training run of the {@code cds} build
+ * profile, so the classes it loads end up in the class-data-sharing archive.
+ * Set {@code codecompass.warmup.enabled=false} to skip it.
+ */
+@Component
+@ConditionalOnProperty(name = "codecompass.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+    private static final int TREE_SIZE = 4;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        try {
+            warmRenderers();
+            warmEnumerations();
+        } catch (IOException | RuntimeException e) {
+            // A failed warmup only means the first request pays for it
+            log.warn("Startup warmup failed", e);
+            return;
+        }
+        log.info("Warmed up renderers and enumerations in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void warmRenderers() throws IOException {
+        SubsetTree subsetTree = new SubsetTree(List.of(1, 2, 3, TREE_SIZE));
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            subsetTree.renderTree(renderer);
+            new NQueensSubsetTree(TREE_SIZE).renderSolutions(renderer);
+            renderer.save(OutputStream.nullOutputStream());
+        }
+        subsetTree.renderTree(new SvgRenderer(Writer.nullWriter()));
+        subsetTree.renderTree(new PngRenderer(OutputStream.nullOutputStream(), 1f));
+        new ColorPermutationTree(List.of("red", "green", "blue")).renderTree(new SvgRenderer(Writer.nullWriter()));
+    }
+
+    private void warmEnumerations() throws IOException {
+        List<RankedEnumeration> enumerations = List.of(
+            new SubsetEnumeration(TREE_SIZE),
+            new PermutationEnumeration(TREE_SIZE),
+            new MultisetPermutationEnumeration(List.of("a", "a", "b")),
+            new SubsetPermutationEnumeration(TREE_SIZE),
+            new CombinationEnumeration(TREE_SIZE, 2, CombinationEnumeration.Order.LEXICOGRAPHIC),
+            new NQueensEnumeration(TREE_SIZE));
+        for (RankedEnumeration enumeration : enumerations) {
+            enumeration.forEach(0, Long.MAX_VALUE, (rank, indices, length) -> { });
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package nl.blitz.demo;
+
+/**
+ * SubsetEnumeration ranks the leaves of {@link SubsetTree}: the tree excludes
+ * before it includes, element by element, so the subset at rank r contains
+ * element i exactly when bit (n - 1 - i) of r is set.
+ */
+public class SubsetEnumeration implements RankedEnumeration {
+    public static final int MAX_ELEMENTS = 62;   // Ranks must fit in a long
+
+    private final int elementCount;
+
+    public SubsetEnumeration(int elementCount) {
+        if (elementCount < 0 || elementCount > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Subset enumeration supports 0 to " + MAX_ELEMENTS + " elements: " + elementCount);
+        }
+        this.elementCount = elementCount;
+    }
+
+    @Override
+    public int getMaxLength() {
+        return elementCount;
+    }
+
+    @Override
+    public long count() {
+        return 1L << elementCount;
+    }
+
+    @Override
+    public int unrank(long rank, int[] out) {
+        checkRank(rank);
+        int length = 0;
+        for (int i = 0; i < elementCount; i++) {
+            if ((rank & (1L << (elementCount - 1 - i))) != 0) {
+                out[length++] = i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the rank of a subset given by its ascending element indices.
+     */
+    public long rank(int[] indices, int length) {
+        long rank = 0;
+        for (int i = 0; i < length; i++) {
+            rank |= 1L << (elementCount - 1 - indices[i]);
+        }
+        return rank;
+    }
+
+    @Override
+    public int successor(long rank, int[] out, int length) {
+        // Adding one clears the trailing run of included last elements and includes the one before it
+        int last = elementCount - 1;
+        while (length > 0 && out[length - 1] == last) {
+            length--;
+            last--;
+        }
+        out[length++] = last;
+        return length;
+    }
+}
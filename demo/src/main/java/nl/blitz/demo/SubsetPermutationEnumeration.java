@@ -0,0 +1,63 @@
+package nl.blitz.demo;
+
+/**
+ * SubsetPermutationEnumeration ranks the leaves of {@link SubsetPermutationTree}
+ * for distinct elements. The tree decides element by element; an included
+ * element is inserted at each position of the arrangement built so far (all
+ * include branches come before the exclude branch). The number of leaves below
+ * a node only depends on how many elements remain and how long the arrangement
+ * is, which makes direct unranking possible.
+ */
+public class SubsetPermutationEnumeration implements RankedEnumeration {
+    public static final int MAX_ELEMENTS = 20;   // Leaf counts must fit in a long
+
+    private final int elementCount;
+    private final long[][] leaves;   // leaves[r][m]: leaves below a node with r elements left and length m
+
+    public SubsetPermutationEnumeration(int elementCount) {
+        if (elementCount < 0 || elementCount > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Subset-permutation enumeration supports 0 to " + MAX_ELEMENTS + " elements: " + elementCount);
+        }
+        this.elementCount = elementCount;
+        this.leaves = new long[elementCount + 1][elementCount + 1];
+        for (int m = 0; m <= elementCount; m++) {
+            leaves[0][m] = 1;
+        }
+        for (int r = 1; r <= elementCount; r++) {
+            for (int m = 0; m + r <= elementCount; m++) {
+                leaves[r][m] = (m + 1) * leaves[r - 1][m + 1] + leaves[r - 1][m];
+            }
+        }
+    }
+
+    @Override
+    public int getMaxLength() {
+        return elementCount;
+    }
+
+    @Override
+    public long count() {
+        return leaves[elementCount][0];
+    }
+
+    @Override
+    public int unrank(long rank, int[] out) {
+        checkRank(rank);
+        int length = 0;
+        for (int i = 0; i < elementCount; i++) {
+            int remaining = elementCount - i - 1;
+            long perPosition = leaves[remaining][length + 1];
+            long includeBlock = (length + 1) * perPosition;
+            if (rank < includeBlock) {
+                int position = (int) (rank / perPosition);
+                rank %= perPosition;
+                System.arraycopy(out, position, out, position + 1, length - position);
+                out[position] = i;
+                length++;
+            } else {
+                rank -= includeBlock;
+            }
+        }
+        return length;
+    }
+}
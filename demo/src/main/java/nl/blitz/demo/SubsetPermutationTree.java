@@ -1,5 +1,6 @@
 package nl.blitz.demo;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -10,6 +11,7 @@ public class SubsetPermutationTree {
     private List<String> elements;
     private List<String> resultMapping;
     private Set<String> uniqueResults;
+    private LabelFormatter formatter;
 
     private static class Node {
         String label;
@@ -31,13 +33,19 @@ public class SubsetPermutationTree {
         this.elements = elements;
         this.resultMapping = new ArrayList<>();
         this.uniqueResults = new HashSet<>();
-        this.root = buildTree(0, new ArrayList<>());
+        this.formatter = LabelFormatter.braces(elements);
+        this.root = buildTree(0, new int[elements.size()], 0);
         generateMapping();
     }
 
-    private Node buildTree(int index, List<String> currentResult) {
+    /**
+     * Builds the subtree deciding element {@code index}.
+     * @param arrangement Indices of the elements placed so far, in order
+     * @param length Number of elements placed so far
+     */
+    private Node buildTree(int index, int[] arrangement, int length) {
         if (index == elements.size()) {
-            String result = formatResult(currentResult);
+            String result = formatter.format(arrangement, length).toString();
             // Only create a new leaf node if this result hasn't been seen before
             if (!uniqueResults.contains(result)) {
                 uniqueResults.add(result);
@@ -47,19 +55,20 @@ public class SubsetPermutationTree {
         }
 
         // Create a decision node
-        Node node = new Node("Decide: " + elements.get(index), false, 0);
+        Node node = new Node("Decide: " + formatter.element(index), false, 0);
         
         // Exclude branch
-        node.exclude = buildTree(index + 1, new ArrayList<>(currentResult));
+        node.exclude = buildTree(index + 1, arrangement, length);
         
         // Include branch with position choices
-        node.include = new Node("Choose position for " + elements.get(index), false, currentResult.size() + 1);
+        node.include = new Node("Choose position for " + formatter.element(index), false, length + 1);
         
-        // Create position choices
-        for (int pos = 0; pos <= currentResult.size(); pos++) {
-            List<String> newResult = new ArrayList<>(currentResult);
-            newResult.add(pos, elements.get(index));
-            node.include.position[pos] = buildTree(index + 1, newResult);
+        // Create position choices: shift the tail right, insert, recurse and shift it back
+        for (int pos = 0; pos <= length; pos++) {
+            System.arraycopy(arrangement, pos, arrangement, pos + 1, length - pos);
+            arrangement[pos] = index;
+            node.include.position[pos] = buildTree(index + 1, arrangement, length + 1);
+            System.arraycopy(arrangement, pos + 1, arrangement, pos, length - pos);
         }
         
         // If both branches are null, return null to prune the tree
@@ -70,13 +79,6 @@ public class SubsetPermutationTree {
         return node;
     }
 
-    private String formatResult(List<String> result) {
-        if (result.isEmpty()) {
-            return "{}";
-        }
-        return "{" + String.join(", ", result) + "}";
-    }
-
     private void generateMapping() {
         traverseAndMap(root);
     }
@@ -101,91 +103,110 @@ public class SubsetPermutationTree {
     }
 
     public void printTree() {
-        System.out.println("Subset-Permutation Tree:");
-        printTreeRecursive(root, "", true);
+        TreePrinter.toConsole(this::writeTree);
     }
 
-    private void printTreeRecursive(Node node, String prefix, boolean isLast) {
+    /**
+     * Writes the tree dump to any Appendable, such as a file Writer or a StringBuilder.
+     */
+    public void printTree(Appendable out) throws IOException {
+        TreePrinter printer = new TreePrinter(out);
+        writeTree(printer);
+        printer.flush();
+    }
+
+    private void writeTree(TreePrinter printer) throws IOException {
+        printer.println("Subset-Permutation Tree:");
+        printTreeRecursive(printer, root, true);
+    }
+
+    private void printTreeRecursive(TreePrinter printer, Node node, boolean isLast) throws IOException {
         if (node != null) {
-            String nodeLabel = node.isLeaf ? 
-                "Result: " + node.label : 
-                node.label;
-            System.out.println(prefix + (isLast ? "\\-- " : "+-- ") + nodeLabel);
+            if (node.isLeaf) {
+                printer.node(isLast, "Result: ", node.label);
+            } else {
+                printer.node(isLast, node.label);
+            }
             
-            String newPrefix = prefix + (isLast ? "    " : "|   ");
+            printer.indent(isLast);
             
             // Print include branch
             if (node.include != null) {
-                printTreeRecursive(node.include, newPrefix, false);
+                printTreeRecursive(printer, node.include, false);
             }
             
             // Print exclude branch
             if (node.exclude != null) {
-                printTreeRecursive(node.exclude, newPrefix, true);
+                printTreeRecursive(printer, node.exclude, true);
             }
             
             // Print position choices
             if (node.position != null) {
                 for (int i = 0; i < node.position.length; i++) {
-                    printTreeRecursive(node.position[i], newPrefix, i == node.position.length - 1);
+                    printTreeRecursive(printer, node.position[i], i == node.position.length - 1);
                 }
             }
+            printer.outdent();
         }
     }
 
     public void printTraversals() {
-        System.out.println("\nResult Traversals (only showing actual results):");
-        System.out.print("Preorder: ");
-        preorderTraversal(root);
-        System.out.println();
-        System.out.print("Postorder: ");
-        postorderTraversal(root);
-        System.out.println();
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nResult Traversals (only showing actual results):");
+            printer.print("Preorder: ");
+            preorderTraversal(printer, root);
+            printer.newLine();
+            printer.print("Postorder: ");
+            postorderTraversal(printer, root);
+            printer.newLine();
+        });
     }
 
-    private void preorderTraversal(Node node) {
+    private void preorderTraversal(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
             if (node.isLeaf) {
-                System.out.print(node.label + " ");
+                printer.print(node.label).print(" ");
             }
             if (node.include != null) {
-                preorderTraversal(node.include);
+                preorderTraversal(printer, node.include);
             }
             if (node.exclude != null) {
-                preorderTraversal(node.exclude);
+                preorderTraversal(printer, node.exclude);
             }
             if (node.position != null) {
                 for (Node posNode : node.position) {
-                    preorderTraversal(posNode);
+                    preorderTraversal(printer, posNode);
                 }
             }
         }
     }
 
-    private void postorderTraversal(Node node) {
+    private void postorderTraversal(TreePrinter printer, Node node) throws IOException {
         if (node != null) {
             if (node.include != null) {
-                postorderTraversal(node.include);
+                postorderTraversal(printer, node.include);
             }
             if (node.exclude != null) {
-                postorderTraversal(node.exclude);
+                postorderTraversal(printer, node.exclude);
             }
             if (node.position != null) {
                 for (Node posNode : node.position) {
-                    postorderTraversal(posNode);
+                    postorderTraversal(printer, posNode);
                 }
             }
             if (node.isLeaf) {
-                System.out.print(node.label + " ");
+                printer.print(node.label).print(" ");
             }
         }
     }
 
     public void printResultMapping() {
-        System.out.println("\nResult Mapping:");
-        for (int i = 0; i < resultMapping.size(); i++) {
-            System.out.println(i + ": " + resultMapping.get(i));
-        }
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nResult Mapping:");
+            for (int i = 0; i < resultMapping.size(); i++) {
+                printer.print(i).print(": ").println(resultMapping.get(i));
+            }
+        });
     }
 
     public boolean searchResult(String result) {
@@ -0,0 +1,341 @@
+package nl.blitz.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * SubsetSearch walks the include/exclude tree of {@link SubsetTree} lazily as
+ * a branch-and-bound search. Every element has a weight and a value; a node
+ * carries the depth (the next element to decide) and the weight and value of
+ * the elements included so far, and nothing below it is generated unless the
+ * caller's predicates let it through:
+ * <ul>
+ * <li>feasibility: can this partial subset still lead to a solution? If not,
+ *     the whole subtree is pruned (e.g. the weight already exceeds a capacity)</li>
+ * <li>acceptance: is a complete subset a solution (e.g. its weight hits a target)?</li>
+ * <li>bound: when maximizing, an upper bound on the value reachable below a node;
+ *     the subtree is pruned when it cannot beat the best solution found so far</li>
+ * </ul>
+ * Solutions are reported as masks with bit i set for element i, in tree order
+ * (exclude before include) when searching on one thread. Parallel runs expand
+ * the top of the tree into independent subtrees and search those on the
+ * common fork-join pool, like {@link ConstraintSearch}.
+ */
+public class SubsetSearch {
+    public static final int MAX_ELEMENTS = 64;   // Subsets are long masks
+    private static final int SUBTREES_PER_THREAD = 16;   // Target number of subtrees per worker thread
+
+    /**
+     * Tests a partial or complete subset by the depth reached and the weight
+     * and value of the elements included so far.
+     */
+    @FunctionalInterface
+    public interface Condition {
+        boolean test(int depth, long weight, long value);
+    }
+
+    /**
+     * Returns an upper bound on the value of any complete subset below a node.
+     */
+    @FunctionalInterface
+    public interface Bound {
+        long upperBound(int depth, long weight, long value);
+    }
+
+    /**
+     * One complete subset and its totals.
+     */
+    public record Solution(long mask, long weight, long value) {
+    }
+
+    /**
+     * Counts from the last run.
+     * @param nodesVisited Nodes of the include/exclude tree that were generated
+     * @param subtreesPruned Children rejected by the feasibility test or the bound
+     * @param solutions Accepted leaves (when maximizing: improvements of the best value)
+     * @param fullTreeNodes Nodes of the fully expanded tree, for comparison
+     */
+    public record Statistics(long nodesVisited, long subtreesPruned, long solutions, long fullTreeNodes) {
+    }
+
+    private final int elementCount;
+    private final long[] weights;
+    private final long[] values;
+    private Condition feasible = (depth, weight, value) -> true;
+    private Condition accept = (depth, weight, value) -> true;
+    private Bound bound;
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAdder subtreesPruned = new LongAdder();
+    private final LongAdder solutions = new LongAdder();
+
+    // Best solution while maximizing, shared by all workers
+    private volatile long bestValue;
+    private Solution best;
+
+    /**
+     * Search state at the root of one subtree.
+     */
+    private record State(int depth, long chosen, long weight, long value) {
+    }
+
+    /**
+     * Per-thread search, so workers only share the counters and the best solution.
+     */
+    private class Worker {
+        final LongConsumer consumer;
+        final boolean maximizing;
+        long nodes;
+        long pruned;
+        long found;
+
+        Worker(LongConsumer consumer, boolean maximizing) {
+            this.consumer = consumer;
+            this.maximizing = maximizing;
+        }
+
+        void run(State state) {
+            search(state.depth(), state.chosen(), state.weight(), state.value());
+            nodesVisited.add(nodes);
+            subtreesPruned.add(pruned);
+            solutions.add(found);
+        }
+
+        void search(int depth, long chosen, long weight, long value) {
+            if (depth == elementCount) {
+                if (accept.test(depth, weight, value)) {
+                    if (maximizing) {
+                        if (offer(chosen, weight, value)) {
+                            found++;
+                        }
+                    } else {
+                        found++;
+                        if (consumer != null) {
+                            consumer.accept(chosen);
+                        }
+                    }
+                }
+                return;
+            }
+            // Exclude first, then include, as the tree orders its children
+            if (admits(depth + 1, weight, value, maximizing)) {
+                nodes++;
+                search(depth + 1, chosen, weight, value);
+            } else {
+                pruned++;
+            }
+            long includedWeight = weight + weights[depth];
+            long includedValue = value + values[depth];
+            if (admits(depth + 1, includedWeight, includedValue, maximizing)) {
+                nodes++;
+                search(depth + 1, chosen | (1L << depth), includedWeight, includedValue);
+            } else {
+                pruned++;
+            }
+        }
+    }
+
+    /**
+     * Prepares a search over elements with the given weights and values.
+     * @param values The value of each element, or null to use the weights
+     */
+    public SubsetSearch(long[] weights, long[] values) {
+        if (weights.length > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("At most " + MAX_ELEMENTS + " elements are supported: " + weights.length);
+        }
+        if (values != null && values.length != weights.length) {
+            throw new IllegalArgumentException("Expected " + weights.length + " values, got " + values.length);
+        }
+        this.elementCount = weights.length;
+        this.weights = weights.clone();
+        this.values = values == null ? weights.clone() : values.clone();
+    }
+
+    /**
+     * Prepares a search over the elements of a {@link SubsetTree}, each weighing its own value.
+     */
+    public SubsetSearch(List<Integer> elements) {
+        this(elements.stream().mapToLong(Integer::longValue).toArray(), null);
+    }
+
+    /**
+     * Sets the test a partial subset must pass for its subtree to be explored.
+     */
+    public SubsetSearch feasibleWhen(Condition feasible) {
+        this.feasible = feasible;
+        return this;
+    }
+
+    /**
+     * Sets the test a complete subset must pass to count as a solution.
+     */
+    public SubsetSearch acceptWhen(Condition accept) {
+        this.accept = accept;
+        return this;
+    }
+
+    /**
+     * Sets the bound used by {@link #maximize()}; without one, maximizing only
+     * prunes on feasibility.
+     */
+    public SubsetSearch boundedBy(Bound bound) {
+        this.bound = bound;
+        return this;
+    }
+
+    /**
+     * Returns the sums of the last n - i entries at index i, for bounds such as
+     * "the remaining elements can still reach the target".
+     */
+    public static long[] suffixSums(long[] amounts) {
+        long[] sums = new long[amounts.length + 1];
+        for (int i = amounts.length - 1; i >= 0; i--) {
+            sums[i] = sums[i + 1] + amounts[i];
+        }
+        return sums;
+    }
+
+    /**
+     * Counts all solutions on the calling thread.
+     */
+    public long countSolutions() {
+        return run(null);
+    }
+
+    /**
+     * Passes the mask of every solution to the consumer on the calling thread, in tree order.
+     */
+    public void forEachSolution(LongConsumer consumer) {
+        run(consumer);
+    }
+
+    /**
+     * Counts all solutions, searching independent subtrees in parallel.
+     */
+    public long countSolutionsParallel() {
+        return runParallel(null, false);
+    }
+
+    /**
+     * Passes the mask of every solution to the consumer from the worker
+     * threads, in no particular order. The consumer must be thread-safe.
+     */
+    public void forEachSolutionParallel(LongConsumer consumer) {
+        runParallel(consumer, false);
+    }
+
+    /**
+     * Finds an accepted subset of the largest value on the calling thread.
+     * @return The solution, or null if no subset is accepted
+     */
+    public Solution maximize() {
+        resetBest();
+        resetStatistics();
+        if (admits(0, 0, 0, true)) {
+            nodesVisited.increment();
+            new Worker(null, true).run(new State(0, 0, 0, 0));
+        }
+        return best;
+    }
+
+    /**
+     * Finds an accepted subset of the largest value, searching subtrees in
+     * parallel. Bounds prune against the best value found by any worker.
+     */
+    public Solution maximizeParallel() {
+        resetBest();
+        runParallel(null, true);
+        return best;
+    }
+
+    /**
+     * Returns what the last run visited and pruned.
+     */
+    public Statistics getStatistics() {
+        long fullTree = elementCount >= 62 ? Long.MAX_VALUE : (1L << (elementCount + 1)) - 1;
+        return new Statistics(nodesVisited.sum(), subtreesPruned.sum(), solutions.sum(), fullTree);
+    }
+
+    private boolean admits(int depth, long weight, long value, boolean maximizing) {
+        if (!feasible.test(depth, weight, value)) {
+            return false;
+        }
+        return !maximizing || bound == null || bound.upperBound(depth, weight, value) > bestValue;
+    }
+
+    private synchronized boolean offer(long chosen, long weight, long value) {
+        if (best != null && value <= best.value()) {
+            return false;
+        }
+        best = new Solution(chosen, weight, value);
+        bestValue = value;
+        return true;
+    }
+
+    private synchronized void resetBest() {
+        best = null;
+        bestValue = Long.MIN_VALUE;
+    }
+
+    private void resetStatistics() {
+        nodesVisited.reset();
+        subtreesPruned.reset();
+        solutions.reset();
+    }
+
+    private long run(LongConsumer consumer) {
+        resetStatistics();
+        if (feasible.test(0, 0, 0)) {
+            nodesVisited.increment();
+            new Worker(consumer, false).run(new State(0, 0, 0, 0));
+        }
+        return solutions.sum();
+    }
+
+    private long runParallel(LongConsumer consumer, boolean maximizing) {
+        resetStatistics();
+        if (!admits(0, 0, 0, maximizing)) {
+            return 0;
+        }
+        nodesVisited.increment();
+        int target = ForkJoinPool.getCommonPoolParallelism() * SUBTREES_PER_THREAD;
+        List<State> frontier = split(target, maximizing);
+        frontier.parallelStream().forEach(state -> new Worker(consumer, maximizing).run(state));
+        return solutions.sum();
+    }
+
+    /**
+     * Expands the top of the tree breadth-first, pruning as the workers would,
+     * until there are at least target subtrees or the leaves are reached.
+     */
+    private List<State> split(int target, boolean maximizing) {
+        List<State> frontier = List.of(new State(0, 0, 0, 0));
+        long nodes = 0;
+        long pruned = 0;
+        while (frontier.size() < target && !frontier.isEmpty() && frontier.get(0).depth() < elementCount) {
+            List<State> expanded = new ArrayList<>(frontier.size() * 2);
+            for (State state : frontier) {
+                int depth = state.depth();
+                long weight = state.weight() + weights[depth];
+                long value = state.value() + values[depth];
+                if (admits(depth + 1, state.weight(), state.value(), maximizing)) {
+                    expanded.add(new State(depth + 1, state.chosen(), state.weight(), state.value()));
+                } else {
+                    pruned++;
+                }
+                if (admits(depth + 1, weight, value, maximizing)) {
+                    expanded.add(new State(depth + 1, state.chosen() | (1L << depth), weight, value));
+                } else {
+                    pruned++;
+                }
+            }
+            nodes += expanded.size();
+            frontier = expanded;
+        }
+        nodesVisited.add(nodes);
+        subtreesPruned.add(pruned);
+        return frontier;
+    }
+}
@@ -0,0 +1,187 @@
+package nl.blitz.demo;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class SubsetSearchBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        // Subset sum: full enumeration vs. branch and bound
+        System.out.println("Subset sum: subsets of random weights that hit half the total");
+        System.out.printf("%4s %10s %14s %12s %14s %14s %12s%n",
+            "n", "solutions", "full nodes", "full ms", "visited", "pruned", "pruned ms");
+        for (int n = 16; n <= 28; n += 4) {
+            benchmarkSubsetSum(n);
+        }
+
+        // 0/1 knapsack: bounds against the best value found so far
+        System.out.println("\n0/1 knapsack with a fractional bound:");
+        System.out.printf("%4s %10s %14s %14s %12s %12s%n", "n", "best value", "visited", "pruned", "seq ms", "parallel ms");
+        for (int n = 20; n <= 50; n += 10) {
+            benchmarkKnapsack(n);
+        }
+
+        // Meet in the middle: the same subset-sum counts from two sorted half lists
+        System.out.println("\nSubset sum, tree walk vs. meet in the middle:");
+        System.out.printf("%4s %14s %12s %12s %12s %12s %14s%n",
+            "n", "solutions", "walk ms", "pruned ms", "build ms", "query ms", "closest miss");
+        for (int n = 20; n <= 48; n += 4) {
+            benchmarkMeetInTheMiddle(n);
+        }
+    }
+
+    private static void benchmarkMeetInTheMiddle(int n) {
+        long[] weights = randomWeights(n, 1_000_000, new Random(SEED + n));
+        long[] remaining = SubsetSearch.suffixSums(weights);
+        long target = remaining[0] / 2;
+
+        // The tree walks only run while they finish in seconds
+        String walkMillis = "-";
+        String prunedMillis = "-";
+        long walkSolutions = -1;
+        if (n <= 28) {
+            SubsetSearch walk = new SubsetSearch(weights, null)
+                .acceptWhen((depth, weight, value) -> weight == target);
+            long start = System.nanoTime();
+            walkSolutions = walk.countSolutions();
+            walkMillis = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+
+            SubsetSearch pruned = new SubsetSearch(weights, null)
+                .feasibleWhen((depth, weight, value) -> weight <= target && weight + remaining[depth] >= target)
+                .acceptWhen((depth, weight, value) -> weight == target);
+            start = System.nanoTime();
+            pruned.countSolutions();
+            prunedMillis = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+        }
+
+        MeetInTheMiddle engine = null;
+        long solutions = 0;
+        long buildNanos = 0;
+        long queryNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            engine = null;   // Let the previous lists go before building the next ones
+            long start = System.nanoTime();
+            engine = new MeetInTheMiddle(weights);
+            buildNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            solutions = engine.count(target);
+            queryNanos = System.nanoTime() - start;
+        }
+        MeetInTheMiddle.Solution closest = engine.closest(target);
+
+        System.out.printf("%4d %14d %12s %12s %12.1f %12.1f %14d%n", n, solutions, walkMillis, prunedMillis,
+            buildNanos / 1e6, queryNanos / 1e6, closest.sum() - target);
+        long closestSum = 0;
+        for (int i = 0; i < n; i++) {
+            if ((closest.mask() & (1L << i)) != 0) {
+                closestSum += weights[i];
+            }
+        }
+        if ((walkSolutions >= 0 && walkSolutions != solutions) || closestSum != closest.sum()
+                || engine.exists(target) != (solutions > 0)) {
+            System.err.println("✗ Meet in the middle disagrees for n=" + n);
+        }
+    }
+
+    private static long[] randomWeights(int n, int max, Random random) {
+        long[] weights = new long[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1 + random.nextInt(max);
+        }
+        return weights;
+    }
+
+    private static void benchmarkSubsetSum(int n) {
+        long[] weights = randomWeights(n, 1000, new Random(SEED + n));
+        long[] remaining = SubsetSearch.suffixSums(weights);
+        long target = remaining[0] / 2;
+
+        // Every leaf of the full tree, as the enumeration lists them
+        SubsetSearch full = new SubsetSearch(weights, null)
+            .acceptWhen((depth, weight, value) -> weight == target);
+        // Prune once the target is overshot or can no longer be reached
+        SubsetSearch pruned = new SubsetSearch(weights, null)
+            .feasibleWhen((depth, weight, value) -> weight <= target && weight + remaining[depth] >= target)
+            .acceptWhen((depth, weight, value) -> weight == target);
+
+        long fullSolutions = 0;
+        long prunedSolutions = 0;
+        long fullNanos = 0;
+        long prunedNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            fullSolutions = full.countSolutions();
+            fullNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            prunedSolutions = pruned.countSolutions();
+            prunedNanos = System.nanoTime() - start;
+        }
+        SubsetSearch.Statistics stats = pruned.getStatistics();
+        System.out.printf("%4d %10d %14d %12.1f %14d %14d %12.1f%n", n, prunedSolutions, full.getStatistics().nodesVisited(),
+            fullNanos / 1e6, stats.nodesVisited(), stats.subtreesPruned(), prunedNanos / 1e6);
+        if (fullSolutions != prunedSolutions || pruned.countSolutionsParallel() != prunedSolutions) {
+            System.err.println("✗ Subset sum counts differ for n=" + n);
+        }
+    }
+
+    private static void benchmarkKnapsack(int n) {
+        Random random = new Random(SEED + n);
+        long[] rawWeights = randomWeights(n, 100, random);
+        long[] rawValues = randomWeights(n, 100, random);
+
+        // Decide the best value per weight first, so the fractional bound is tight early
+        Integer[] byRatio = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        Arrays.sort(byRatio, Comparator.comparingDouble(i -> -(double) rawValues[i] / rawWeights[i]));
+        long[] weights = new long[n];
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = rawWeights[byRatio[i]];
+            values[i] = rawValues[byRatio[i]];
+        }
+        long capacity = SubsetSearch.suffixSums(weights)[0] / 3;
+
+        SubsetSearch knapsack = new SubsetSearch(weights, values)
+            .feasibleWhen((depth, weight, value) -> weight <= capacity)
+            .boundedBy((depth, weight, value) -> {
+                // Fill the remaining room greedily, taking a fraction of the first item that does not fit
+                long room = capacity - weight;
+                double total = value;
+                for (int i = depth; i < n; i++) {
+                    if (weights[i] <= room) {
+                        room -= weights[i];
+                        total += values[i];
+                    } else {
+                        total += (double) values[i] * room / weights[i];
+                        break;
+                    }
+                }
+                return (long) Math.floor(total);
+            });
+
+        SubsetSearch.Solution best = null;
+        SubsetSearch.Solution parallelBest = null;
+        long sequentialNanos = 0;
+        long parallelNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            parallelBest = knapsack.maximizeParallel();
+            parallelNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            best = knapsack.maximize();
+            sequentialNanos = System.nanoTime() - start;
+        }
+        SubsetSearch.Statistics stats = knapsack.getStatistics();
+        System.out.printf("%4d %10d %14d %14d %12.1f %12.1f%n", n, best.value(), stats.nodesVisited(),
+            stats.subtreesPruned(), sequentialNanos / 1e6, parallelNanos / 1e6);
+        if (parallelBest.value() != best.value() || best.weight() > capacity) {
+            System.err.println("✗ Knapsack results differ for n=" + n + ": " + best + " vs. " + parallelBest);
+        }
+    }
+}
@@ -4,20 +4,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 
 public class SubsetTree {
     private Node root;
     private List<Integer> elements;
     private List<String> subsetMapping;
-    private float INITIAL_HORIZONTAL_SPACING = 150f;
+    private LabelFormatter formatter;
+    private static final float INITIAL_HORIZONTAL_SPACING = 150f;
     private static final float HORIZONTAL_DECREASE_FACTOR = 0.85f;
-    private float MIN_HORIZONTAL_SPACING = 40f;
+    private static final float MIN_HORIZONTAL_SPACING = 40f;
     private static final float VERTICAL_SPACING = 45f;
     private static final float PAGE_MARGIN = 30f;
+    private static final float PAGE_WIDTH = PDRectangle.LETTER.getWidth();
+    private static final float PAGE_HEIGHT = PDRectangle.LETTER.getHeight();
     private static final float FONT_SIZE = 11f;
     private static final float MIN_BRANCH_SPACING = 40f;
     private static final float LEAF_SPACING = 30f;
@@ -34,46 +34,62 @@ public class SubsetTree {
     private static final float LEAF_ANGLE_FACTOR = 0.5f;
     private static final float[] INCLUSION_COLOR = {0f, 0.5f, 0f}; // Green for inclusion
     private static final float[] EXCLUSION_COLOR = {0.8f, 0f, 0f}; // Red for exclusion
+    private static final float[] CIRCLE_COLOR = {1f, 1f, 1f}; // White (invisible) circle outline
+    private static final float[] TEXT_COLOR = {0f, 0f, 0f}; // Black labels, also after a grey summary glyph
+    private static final int MAX_BATCHED_PRIMITIVES = 4096;   // Flush the reverse layout at least this often
 
     private static class Node {
         Node[] children;
         boolean isLeaf;
-        List<Integer> subset;
+        String label;    // Formatted subset for leaves, the chosen element otherwise
         Integer chosenElement;
         boolean isIncluded;
 
         public Node(boolean isLeaf, int numChildren) {
             this.children = new Node[numChildren];
             this.isLeaf = isLeaf;
-            this.subset = new ArrayList<>();
+            this.label = null;
             this.chosenElement = null;
             this.isIncluded = false;
         }
     }
 
+    /**
+     * Returns the number of nodes the tree has for the given number of
+     * elements, 2^(n+1) - 1, or Long.MAX_VALUE when that does not fit.
+     */
+    public static long nodeCount(int elementCount) {
+        return elementCount >= Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (elementCount + 1)) - 1;
+    }
+
     public SubsetTree(List<Integer> elements) {
         this.elements = elements;
         this.subsetMapping = new ArrayList<>();
-        this.root = buildSubsetTree(new ArrayList<>(), 0);
+        this.formatter = LabelFormatter.braces(elements);
+        this.root = buildSubsetTree(new int[elements.size()], 0, 0);
         generateMapping();
     }
 
-    private Node buildSubsetTree(List<Integer> currentSubset, int currentIndex) {
+    /**
+     * Builds the tree, tracking the chosen element indices in one shared array.
+     * Every label is formatted exactly once, here.
+     */
+    private Node buildSubsetTree(int[] chosen, int chosenCount, int currentIndex) {
         if (currentIndex >= elements.size()) {
             Node leaf = new Node(true, 0);
-            leaf.subset.addAll(currentSubset);
+            leaf.label = formatter.format(chosen, chosenCount).toString();
             return leaf;
         }
 
         Node node = new Node(false, 2);
         node.chosenElement = elements.get(currentIndex);
+        node.label = formatter.element(currentIndex);
 
-        node.children[0] = buildSubsetTree(currentSubset, currentIndex + 1);
+        node.children[0] = buildSubsetTree(chosen, chosenCount, currentIndex + 1);
         node.children[0].isIncluded = false;
 
-        List<Integer> newSubset = new ArrayList<>(currentSubset);
-        newSubset.add(elements.get(currentIndex));
-        node.children[1] = buildSubsetTree(newSubset, currentIndex + 1);
+        chosen[chosenCount] = currentIndex;
+        node.children[1] = buildSubsetTree(chosen, chosenCount + 1, currentIndex + 1);
         node.children[1].isIncluded = true;
 
         return node;
@@ -81,39 +97,25 @@ public class SubsetTree {
 
     private void generateMapping() {
         subsetMapping.clear();
-        traverseAndMap(root, new ArrayList<>());
+        traverseAndMap(root);
     }
 
-    private void traverseAndMap(Node node, List<Integer> currentSubset) {
+    private void traverseAndMap(Node node) {
         if (node != null) {
             if (node.isLeaf) {
-                subsetMapping.add(formatSubset(currentSubset));
+                subsetMapping.add(node.label);
             }
             for (Node child : node.children) {
-                List<Integer> newSubset = new ArrayList<>(currentSubset);
-                if (child.isIncluded) {
-                    newSubset.add(child.chosenElement);
-                }
-                traverseAndMap(child, newSubset);
+                traverseAndMap(child);
             }
         }
     }
 
-    private String formatSubset(List<Integer> subset) {
-        if (subset.isEmpty()) {
-            return "{}";
-        }
-        return "{" + String.join(", ", subset.stream().map(String::valueOf).toList()) + "}";
-    }
-
     private float calculateTotalWidth(Node node, int depth) {
         if (node == null) return 0;
-        if (node.isLeaf) return calculateNodeWidth(formatSubset(node.subset));
+        if (node.isLeaf) return calculateNodeWidth(node.label);
         
-        float currentSpacing = Math.max(
-            INITIAL_HORIZONTAL_SPACING * (float)Math.pow(HORIZONTAL_DECREASE_FACTOR, depth),
-            MIN_HORIZONTAL_SPACING
-        );
+        float currentSpacing = horizontalSpacing(depth, 1f);
         
         // Apply compression if we're at or beyond max depth
         if (depth >= MAX_DEPTH) {
@@ -126,39 +128,61 @@ public class SubsetTree {
         return currentSpacing + Math.max(leftWidth, rightWidth);
     }
 
+    /**
+     * Returns the horizontal distance from a node at the given depth to its
+     * children, before compression, scaled to fit the page.
+     */
+    private static float horizontalSpacing(int depth, float scale) {
+        return Math.max(
+            INITIAL_HORIZONTAL_SPACING * (float)Math.pow(HORIZONTAL_DECREASE_FACTOR, depth),
+            MIN_HORIZONTAL_SPACING
+        ) * scale;
+    }
+
     public void saveTreeToPDF(String filename) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
-            
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
-            
-            // Calculate total width needed
-            float totalWidth = calculateTotalWidth(root, 0);
-            
-            // Adjust starting position if tree is too wide
-            float startX = PAGE_MARGIN;
-            if (totalWidth > pageWidth - (2 * PAGE_MARGIN)) {
-                // Scale down the initial spacing to fit
-                float scaleFactor = (pageWidth - (2 * PAGE_MARGIN)) / totalWidth;
-                INITIAL_HORIZONTAL_SPACING *= scaleFactor;
-                MIN_HORIZONTAL_SPACING *= scaleFactor;
-            }
-            
-            float startY = pageHeight / 2;
-            
-            // Draw the tree
-            drawTreeToPDF(contentStream, page, root, startX, startY, INITIAL_HORIZONTAL_SPACING, calculateTotalHeight(root), 0);
-            
-            contentStream.close();
-            document.save(filename);
+        saveTreeToPDF(filename, LevelOfDetail.FULL);
+    }
+
+    public void saveTreeToPDF(String filename, LevelOfDetail detail) throws IOException {
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            renderTree(renderer, detail);
+            renderer.save(filename);
         }
     }
 
+    public void renderTree(Renderer renderer) throws IOException {
+        renderTree(renderer, LevelOfDetail.FULL);
+    }
+
+    /**
+     * Lays out the tree on a single page and draws it to the given renderer.
+     * @param detail Where subtrees are collapsed into a marker showing how many subsets they hold
+     */
+    public void renderTree(Renderer renderer, LevelOfDetail detail) throws IOException {
+        renderer.beginPage(PAGE_WIDTH, PAGE_HEIGHT);
+        
+        // Calculate total width needed
+        float totalWidth = calculateTotalWidth(root, 0);
+        
+        // Adjust starting position if tree is too wide
+        float startX = PAGE_MARGIN;
+        float scaleFactor = 1f;
+        if (totalWidth > PAGE_WIDTH - (2 * PAGE_MARGIN)) {
+            // Scale down the spacing to fit, for this render only
+            scaleFactor = (PAGE_WIDTH - (2 * PAGE_MARGIN)) / totalWidth;
+        }
+        
+        float startY = PAGE_HEIGHT / 2;
+        
+        // Draw the tree, grouping primitives by graphics state
+        RenderBatch batch = new RenderBatch(FONT_SIZE, TEXT_COLOR);
+        drawTree(batch, root, startX, startY, horizontalSpacing(0, scaleFactor), scaleFactor,
+            calculateTotalHeight(root), 0, PAGE_HEIGHT - 2 * PAGE_MARGIN, detail);
+        batch.flush(renderer);
+        
+        renderer.endPage();
+    }
+
     private float calculateTotalHeight(Node node) {
         if (node == null) return 0;
         if (node.isLeaf) return LEAF_SPACING;
@@ -170,76 +194,59 @@ public class SubsetTree {
         return (text.length() * FONT_SIZE * 0.6f) + (2 * NODE_PADDING);
     }
 
-    private void drawCircle(PDPageContentStream contentStream, float x, float y) throws IOException {
-        // Set stroke color to white (invisible)
-        contentStream.setStrokingColor(1f, 1f, 1f);
-        contentStream.setLineWidth(CIRCLE_STROKE_WIDTH);
-        contentStream.moveTo(x + CIRCLE_RADIUS, y);
-        contentStream.curveTo(
-            x + CIRCLE_RADIUS, y + CIRCLE_RADIUS * 0.552f,
-            x + CIRCLE_RADIUS * 0.552f, y + CIRCLE_RADIUS,
-            x, y + CIRCLE_RADIUS
-        );
-        contentStream.curveTo(
-            x - CIRCLE_RADIUS * 0.552f, y + CIRCLE_RADIUS,
-            x - CIRCLE_RADIUS, y + CIRCLE_RADIUS * 0.552f,
-            x - CIRCLE_RADIUS, y
-        );
-        contentStream.curveTo(
-            x - CIRCLE_RADIUS, y - CIRCLE_RADIUS * 0.552f,
-            x - CIRCLE_RADIUS * 0.552f, y - CIRCLE_RADIUS,
-            x, y - CIRCLE_RADIUS
-        );
-        contentStream.curveTo(
-            x + CIRCLE_RADIUS * 0.552f, y - CIRCLE_RADIUS,
-            x + CIRCLE_RADIUS, y - CIRCLE_RADIUS * 0.552f,
-            x + CIRCLE_RADIUS, y
-        );
-        contentStream.stroke();
+    private static void drawCircle(RenderBatch batch, float x, float y) {
+        // Stroke color is white (invisible)
+        batch.strokeCircle(CIRCLE_COLOR, CIRCLE_STROKE_WIDTH, x, y, CIRCLE_RADIUS);
     }
 
-    private float calculateTextWidth(String text) {
+    private static float calculateTextWidth(String text) {
         return text.length() * FONT_SIZE * 0.5f;
     }
 
-    private void drawTreeToPDF(PDPageContentStream contentStream, PDPage page, Node node, float x, float y, float xOffset, float totalHeight, int depth) throws IOException {
+    /**
+     * Draws a node's subtree.
+     * @param spacingScale Factor applied to the horizontal spacing so the tree fits the page
+     * @param band Height of the page band the node's subtree would share at a
+     *             balanced layout, used by the level of detail
+     */
+    private void drawTree(RenderBatch batch, Node node, float x, float y, float xOffset, float spacingScale,
+                          float totalHeight, int depth, float band, LevelOfDetail detail) {
         if (node == null) return;
         
-        String nodeText = node.isLeaf ? formatSubset(node.subset) : node.chosenElement.toString();
+        String nodeText = node.label;
         float textWidth = calculateTextWidth(nodeText);
         
         // Check if node would go beyond page boundaries
-        float pageWidth = page.getMediaBox().getWidth();
-        float pageHeight = page.getMediaBox().getHeight();
-        
-        if (x - CIRCLE_RADIUS < PAGE_MARGIN || x + CIRCLE_RADIUS > pageWidth - PAGE_MARGIN) {
-            x = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(pageWidth - PAGE_MARGIN - CIRCLE_RADIUS, x));
+        if (x - CIRCLE_RADIUS < PAGE_MARGIN || x + CIRCLE_RADIUS > PAGE_WIDTH - PAGE_MARGIN) {
+            x = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(PAGE_WIDTH - PAGE_MARGIN - CIRCLE_RADIUS, x));
         }
         
-        if (y - CIRCLE_RADIUS < PAGE_MARGIN || y + CIRCLE_RADIUS > pageHeight - PAGE_MARGIN) {
-            y = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(pageHeight - PAGE_MARGIN - CIRCLE_RADIUS, y));
+        if (y - CIRCLE_RADIUS < PAGE_MARGIN || y + CIRCLE_RADIUS > PAGE_HEIGHT - PAGE_MARGIN) {
+            y = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(PAGE_HEIGHT - PAGE_MARGIN - CIRCLE_RADIUS, y));
         }
         
         // Draw the circle
-        drawCircle(contentStream, x, y);
+        drawCircle(batch, x, y);
         
         // Draw the text centered in the circle
-        contentStream.beginText();
-        contentStream.newLineAtOffset(x - textWidth/2, y - FONT_SIZE/3);
-        contentStream.showText(nodeText);
-        contentStream.endText();
+        batch.showText(nodeText, x - textWidth/2, y - FONT_SIZE/3);
+        
+        float childBand = band / 2;
+        if (!node.isLeaf && detail.collapses(depth, childBand)) {
+            // Every element below this depth is still open, so the subtree holds 2^k subsets
+            int open = elements.size() - depth;
+            long leaves = open < Long.SIZE - 1 ? 1L << open : -1;
+            LevelOfDetail.drawSummary(batch, batch, x + CIRCLE_RADIUS, y, FONT_SIZE, leaves, "2^" + open);
+            return;
+        }
         
         if (!node.isLeaf) {
             float leftHeight = calculateTotalHeight(node.children[0]);
             float rightHeight = calculateTotalHeight(node.children[1]);
             
             // Calculate the required space for each child node
-            float leftNodeWidth = calculateNodeWidth(node.children[0].isLeaf ? 
-                formatSubset(node.children[0].subset) : 
-                node.children[0].chosenElement.toString());
-            float rightNodeWidth = calculateNodeWidth(node.children[1].isLeaf ? 
-                formatSubset(node.children[1].subset) : 
-                node.children[1].chosenElement.toString());
+            float leftNodeWidth = calculateNodeWidth(node.children[0].label);
+            float rightNodeWidth = calculateNodeWidth(node.children[1].label);
             
             // Calculate base spacing that increases with depth to prevent overlap
             float baseSpacing = MIN_BRANCH_SPACING * (1 + (depth * 0.15f));
@@ -254,10 +261,7 @@ public class SubsetTree {
             float dynamicSpacing = Math.max(baseSpacing, minRequiredSpacing);
             
             // Calculate dynamic horizontal spacing that decreases with depth
-            float currentHorizontalSpacing = Math.max(
-                INITIAL_HORIZONTAL_SPACING * (float)Math.pow(HORIZONTAL_DECREASE_FACTOR, depth),
-                MIN_HORIZONTAL_SPACING
-            );
+            float currentHorizontalSpacing = horizontalSpacing(depth, spacingScale);
             
             // Apply compression if we're at or beyond max depth
             if (depth >= MAX_DEPTH) {
@@ -283,18 +287,14 @@ public class SubsetTree {
                 float leftChildY = y - dynamicSpacing * angleFactor;
                 
                 // Ensure child position is within page boundaries
-                leftChildX = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(pageWidth - PAGE_MARGIN - CIRCLE_RADIUS, leftChildX));
-                leftChildY = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(pageHeight - PAGE_MARGIN - CIRCLE_RADIUS, leftChildY));
-                
-                // Set color for exclusion branch (red)
-                contentStream.setStrokingColor(EXCLUSION_COLOR[0], EXCLUSION_COLOR[1], EXCLUSION_COLOR[2]);
+                leftChildX = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(PAGE_WIDTH - PAGE_MARGIN - CIRCLE_RADIUS, leftChildX));
+                leftChildY = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(PAGE_HEIGHT - PAGE_MARGIN - CIRCLE_RADIUS, leftChildY));
                 
-                // Draw line from parent circle to child circle
-                contentStream.moveTo(x + CIRCLE_RADIUS, y);
-                contentStream.lineTo(leftChildX - CIRCLE_RADIUS, leftChildY);
-                contentStream.stroke();
+                // Draw line from parent circle to child circle in the exclusion color (red)
+                batch.strokeLine(EXCLUSION_COLOR, CIRCLE_STROKE_WIDTH, x + CIRCLE_RADIUS, y, leftChildX - CIRCLE_RADIUS, leftChildY);
                 
-                drawTreeToPDF(contentStream, page, node.children[0], leftChildX, leftChildY, currentHorizontalSpacing, leftHeight, depth + 1);
+                drawTree(batch, node.children[0], leftChildX, leftChildY, currentHorizontalSpacing, spacingScale,
+                    leftHeight, depth + 1, childBand, detail);
             }
             
             // Reset angle factor for right child
@@ -310,44 +310,55 @@ public class SubsetTree {
                 float rightChildY = y + dynamicSpacing * angleFactor;
                 
                 // Ensure child position is within page boundaries
-                rightChildX = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(pageWidth - PAGE_MARGIN - CIRCLE_RADIUS, rightChildX));
-                rightChildY = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(pageHeight - PAGE_MARGIN - CIRCLE_RADIUS, rightChildY));
+                rightChildX = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(PAGE_WIDTH - PAGE_MARGIN - CIRCLE_RADIUS, rightChildX));
+                rightChildY = Math.max(PAGE_MARGIN + CIRCLE_RADIUS, Math.min(PAGE_HEIGHT - PAGE_MARGIN - CIRCLE_RADIUS, rightChildY));
                 
-                // Set color for inclusion branch (green)
-                contentStream.setStrokingColor(INCLUSION_COLOR[0], INCLUSION_COLOR[1], INCLUSION_COLOR[2]);
+                // Draw line from parent circle to child circle in the inclusion color (green)
+                batch.strokeLine(INCLUSION_COLOR, CIRCLE_STROKE_WIDTH, x + CIRCLE_RADIUS, y, rightChildX - CIRCLE_RADIUS, rightChildY);
                 
-                // Draw line from parent circle to child circle
-                contentStream.moveTo(x + CIRCLE_RADIUS, y);
-                contentStream.lineTo(rightChildX - CIRCLE_RADIUS, rightChildY);
-                contentStream.stroke();
-                
-                drawTreeToPDF(contentStream, page, node.children[1], rightChildX, rightChildY, currentHorizontalSpacing, rightHeight, depth + 1);
+                drawTree(batch, node.children[1], rightChildX, rightChildY, currentHorizontalSpacing, spacingScale,
+                    rightHeight, depth + 1, childBand, detail);
             }
         }
     }
 
     public void printTree() {
-        System.out.println("Subset Tree:");
-        printTreeRecursive(root, "", true);
+        TreePrinter.toConsole(this::writeTree);
+    }
+
+    /**
+     * Writes the tree dump to any Appendable, such as a file Writer or a StringBuilder.
+     */
+    public void printTree(Appendable out) throws IOException {
+        TreePrinter printer = new TreePrinter(out);
+        writeTree(printer);
+        printer.flush();
+    }
+
+    private void writeTree(TreePrinter printer) throws IOException {
+        printer.println("Subset Tree:");
+        printTreeRecursive(printer, root, true);
     }
 
-    private void printTreeRecursive(Node node, String prefix, boolean isLast) {
+    private void printTreeRecursive(TreePrinter printer, Node node, boolean isLast) throws IOException {
         if (node != null) {
-            String nodeText = node.isLeaf ? formatSubset(node.subset) : node.chosenElement.toString();
-            System.out.println(prefix + (isLast ? "\\-- " : "+-- ") + nodeText);
+            printer.node(isLast, node.label);
             
-            String newPrefix = prefix + (isLast ? "    " : "|   ");
+            printer.indent(isLast);
             for (int i = 0; i < node.children.length; i++) {
-                printTreeRecursive(node.children[i], newPrefix, i == node.children.length - 1);
+                printTreeRecursive(printer, node.children[i], i == node.children.length - 1);
             }
+            printer.outdent();
         }
     }
 
     public void printSubsets() {
-        System.out.println("\nAll Possible Subsets:");
-        for (String subset : subsetMapping) {
-            System.out.println(subset);
-        }
+        TreePrinter.toConsole(printer -> {
+            printer.println("\nAll Possible Subsets:");
+            for (String subset : subsetMapping) {
+                printer.println(subset);
+            }
+        });
     }
 
     public int getSubsetCount() {
@@ -355,124 +366,103 @@ public class SubsetTree {
     }
 
     public void saveReverseTreeToPDF(String filename) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
-            
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
-            
-            // Calculate total number of layers (depth + 1)
-            int totalLayers = elements.size() + 1;
-            
-            // Calculate width of each vertical section
-            float sectionWidth = (pageWidth - (2 * PAGE_MARGIN)) / totalLayers;
-            
-            // Calculate positions for each layer
-            List<List<Node>> layers = new ArrayList<>();
-            List<List<Float>> layerPositions = new ArrayList<>();
-            
-            // Initialize layers
-            for (int i = 0; i < totalLayers; i++) {
-                layers.add(new ArrayList<>());
-                layerPositions.add(new ArrayList<>());
-            }
+        saveReverseTreeToPDF(elements, filename);
+    }
+
+    /**
+     * Saves the reverse layout of the subset tree of the given elements
+     * without building the tree, see {@link #renderReverseTree(List, Renderer)}.
+     */
+    public static void saveReverseTreeToPDF(List<Integer> elements, String filename) throws IOException {
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            renderReverseTree(elements, renderer);
+            renderer.save(filename);
+        }
+    }
+
+    public void renderReverseTree(Renderer renderer) throws IOException {
+        renderReverseTree(elements, renderer);
+    }
+
+    /**
+     * Lays out the subset tree of the given elements in vertical layers, one per
+     * depth, and draws it to the given renderer, without building the tree.
+     * The tree is complete, so node i of a layer with m nodes sits at the i-th of m
+     * evenly spaced heights and its children are nodes 2i and 2i + 1 of the next
+     * layer. Coordinates are computed from (layer, index) as each node is drawn,
+     * leaf labels come from {@link SubsetEnumeration} in the same order, and the
+     * batch is flushed layer by layer, so beyond the renderer's own output the
+     * memory used does not grow with the tree.
+     */
+    public static void renderReverseTree(List<Integer> elements, Renderer renderer) throws IOException {
+        LabelFormatter formatter = LabelFormatter.braces(elements);
+        renderer.beginPage(PAGE_WIDTH, PAGE_HEIGHT);
+        
+        // Calculate total number of layers (depth + 1)
+        int totalLayers = elements.size() + 1;
+        
+        // Calculate width of each vertical section
+        float sectionWidth = (PAGE_WIDTH - (2 * PAGE_MARGIN)) / totalLayers;
+        float availableHeight = PAGE_HEIGHT - (2 * PAGE_MARGIN);
+        
+        RenderBatch batch = new RenderBatch(FONT_SIZE, TEXT_COLOR);
+        for (int layer = 0; layer < totalLayers; layer++) {
+            float x = layerX(layer, sectionWidth);
+            int totalNodes = 1 << layer;
+            float verticalSpacing = availableHeight / (totalNodes + 1);
             
-            // Collect nodes for each layer
-            collectNodesByLayer(root, 0, layers);
+            // Parents sit in the previous layer; each node draws the edge that reaches it
+            float parentX = layer > 0 ? layerX(layer - 1, sectionWidth) : 0;
+            float parentSpacing = layer > 0 ? availableHeight / ((totalNodes >> 1) + 1) : 0;
             
-            // Calculate positions for each layer
-            for (int layer = 0; layer < totalLayers; layer++) {
-                List<Node> nodes = layers.get(layer);
-                int totalNodes = nodes.size();
-                
-                // Calculate vertical spacing for this layer
-                float availableHeight = pageHeight - (2 * PAGE_MARGIN);
-                float verticalSpacing = availableHeight / (totalNodes + 1);
-                
-                // Calculate x position for this layer
-                float x = PAGE_MARGIN + (layer * sectionWidth) + (sectionWidth / 2);
-                
-                // Calculate y positions for nodes in this layer
+            if (layer == totalLayers - 1) {
+                // Leaves, labelled with their subsets in tree order
+                SubsetEnumeration leaves = new SubsetEnumeration(elements.size());
+                leaves.forEach(0, totalNodes, (i, indices, length) -> {
+                    float y = PAGE_MARGIN + ((int) (i + 1) * verticalSpacing);
+                    drawReverseNode(renderer, batch, formatter.format(indices, length).toString(), (int) i, x, y,
+                        parentX, parentSpacing);
+                });
+            } else {
+                String label = formatter.element(layer);
                 for (int i = 0; i < totalNodes; i++) {
                     float y = PAGE_MARGIN + ((i + 1) * verticalSpacing);
-                    layerPositions.get(layer).add(y);
+                    drawReverseNode(renderer, batch, label, i, x, y, parentX, parentSpacing);
                 }
             }
-            
-            // Draw all nodes
-            for (int layer = 0; layer < totalLayers; layer++) {
-                List<Node> nodes = layers.get(layer);
-                List<Float> positions = layerPositions.get(layer);
-                
-                for (int i = 0; i < nodes.size(); i++) {
-                    Node node = nodes.get(i);
-                    float x = PAGE_MARGIN + (layer * sectionWidth) + (sectionWidth / 2);
-                    float y = positions.get(i);
-                    
-                    // Draw the circle
-                    drawCircle(contentStream, x, y);
-                    
-                    // Draw the text centered in the circle
-                    String nodeText = node.isLeaf ? formatSubset(node.subset) : node.chosenElement.toString();
-                    float textWidth = calculateTextWidth(nodeText);
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(x - textWidth/2, y - FONT_SIZE/3);
-                    contentStream.showText(nodeText);
-                    contentStream.endText();
-                    
-                    // Draw connections to children if not a leaf
-                    if (!node.isLeaf && layer < totalLayers - 1) {
-                        // Find children positions in next layer
-                        int leftChildIndex = i * 2;
-                        int rightChildIndex = i * 2 + 1;
-                        
-                        if (leftChildIndex < layerPositions.get(layer + 1).size()) {
-                            float childX = PAGE_MARGIN + ((layer + 1) * sectionWidth) + (sectionWidth / 2);
-                            float leftChildY = layerPositions.get(layer + 1).get(leftChildIndex);
-                            
-                            // Set color for exclusion branch (red)
-                            contentStream.setStrokingColor(EXCLUSION_COLOR[0], EXCLUSION_COLOR[1], EXCLUSION_COLOR[2]);
-                            
-                            // Draw line from parent circle to child circle
-                            contentStream.moveTo(x + CIRCLE_RADIUS, y);
-                            contentStream.lineTo(childX - CIRCLE_RADIUS, leftChildY);
-                            contentStream.stroke();
-                        }
-                        
-                        if (rightChildIndex < layerPositions.get(layer + 1).size()) {
-                            float childX = PAGE_MARGIN + ((layer + 1) * sectionWidth) + (sectionWidth / 2);
-                            float rightChildY = layerPositions.get(layer + 1).get(rightChildIndex);
-                            
-                            // Set color for inclusion branch (green)
-                            contentStream.setStrokingColor(INCLUSION_COLOR[0], INCLUSION_COLOR[1], INCLUSION_COLOR[2]);
-                            
-                            // Draw line from parent circle to child circle
-                            contentStream.moveTo(x + CIRCLE_RADIUS, y);
-                            contentStream.lineTo(childX - CIRCLE_RADIUS, rightChildY);
-                            contentStream.stroke();
-                        }
-                    }
-                }
-            }
-            
-            contentStream.close();
-            document.save(filename);
+            batch.flush(renderer);
         }
+        
+        renderer.endPage();
     }
 
-    private void collectNodesByLayer(Node node, int layer, List<List<Node>> layers) {
-        if (node == null) return;
+    private static float layerX(int layer, float sectionWidth) {
+        return PAGE_MARGIN + (layer * sectionWidth) + (sectionWidth / 2);
+    }
+
+    /**
+     * Draws node i of a layer and the edge from its parent, node i / 2 of the
+     * previous layer: red for the exclusion child (even i), green for the inclusion child.
+     * The root has no parent and is passed a parentSpacing of 0.
+     */
+    private static void drawReverseNode(Renderer renderer, RenderBatch batch, String label, int i, float x, float y,
+                                 float parentX, float parentSpacing) throws IOException {
+        // Draw the circle
+        drawCircle(batch, x, y);
         
-        // Add node to its layer
-        layers.get(layer).add(node);
+        // Draw the text centered in the circle
+        float textWidth = calculateTextWidth(label);
+        batch.showText(label, x - textWidth/2, y - FONT_SIZE/3);
         
-        if (!node.isLeaf) {
-            collectNodesByLayer(node.children[0], layer + 1, layers);
-            collectNodesByLayer(node.children[1], layer + 1, layers);
+        if (parentSpacing > 0) {
+            float parentY = PAGE_MARGIN + (((i >> 1) + 1) * parentSpacing);
+            float[] color = (i & 1) == 0 ? EXCLUSION_COLOR : INCLUSION_COLOR;
+            batch.strokeLine(color, CIRCLE_STROKE_WIDTH, parentX + CIRCLE_RADIUS, parentY, x - CIRCLE_RADIUS, y);
+        }
+        
+        // Keep wide layers from piling up in the batch
+        if (batch.getPrimitiveCount() >= MAX_BATCHED_PRIMITIVES) {
+            batch.flush(renderer);
         }
     }
 } 
\ No newline at end of file
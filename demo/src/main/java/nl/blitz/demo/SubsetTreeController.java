@@ -1,53 +1,108 @@
 package nl.blitz.demo;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 public class SubsetTreeController {
 
+    private static final MediaType IMAGE_SVG = MediaType.parseMediaType("image/svg+xml");
+    private static final List<MediaType> RENDER_TYPES = List.of(MediaType.APPLICATION_PDF, IMAGE_SVG, MediaType.IMAGE_PNG);
+
+    private final AdmissionControl admission;
+    private final PrerenderCache prerendered;
+    private final DiskCache diskCache;
+
+    public SubsetTreeController(AdmissionControl admission, PrerenderCache prerendered, DiskCache diskCache) {
+        this.admission = admission;
+        this.prerendered = prerendered;
+        this.diskCache = diskCache;
+    }
+
     @GetMapping("/api/subset-tree/{size}")
-    public ResponseEntity<InputStreamResource> getSubsetTreePdf(@PathVariable int size) throws IOException {
-        // Create output directory if it doesn't exist
-        Path outputDir = Paths.get("output");
-        if (!Files.exists(outputDir)) {
-            Files.createDirectories(outputDir);
+    public ResponseEntity<StreamingResponseBody> getSubsetTree(@PathVariable int size,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        if (size < 0 || size > TreeApiController.Family.SUBSET.maxRenderSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Size must be between 0 and " + TreeApiController.Family.SUBSET.maxRenderSize);
         }
 
-        // Generate the subset tree
-        List<Integer> numbers = Arrays.asList(1, 2, 3, 4).subList(0, size);
-        SubsetTree subsetTree = new SubsetTree(numbers);
+        MediaType renderType = selectRenderType(accept);
+        StreamingResponseBody cached = prerendered.get(TreeApiController.Family.SUBSET, size, renderType);
+        if (cached != null) {
+            return ResponseEntity.ok()
+                    .headers(headers(renderType))
+                    .contentType(renderType)
+                    .body(cached);
+        }
 
-        // Generate PDF to memory
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        String pdfPath = outputDir.resolve("subset_tree_size_" + size + ".pdf").toString();
-        subsetTree.saveTreeToPDF(pdfPath);
+        // Drawings are kept on disk, shared with /api/trees/subset/render?size=n
+        List<Integer> numbers = IntStream.rangeClosed(1, size).boxed().collect(Collectors.toList());
+        String fileName = DiskCache.fileName(TreeApiController.Family.SUBSET, numbers, LevelOfDetail.FULL, renderType);
+        StreamingResponseBody stored = diskCache.get(fileName);
+        if (stored != null) {
+            return ResponseEntity.ok()
+                    .headers(headers(renderType))
+                    .contentType(renderType)
+                    .body(stored);
+        }
 
-        // Read the generated PDF
-        byte[] pdfBytes = Files.readAllBytes(Paths.get(pdfPath));
+        try (AdmissionControl.Permit permit = admission.admit(AdmissionControl.Work.RENDER, SubsetTree.nodeCount(size))) {
+            SubsetTree subsetTree = new SubsetTree(numbers);
+            StreamingResponseBody body = diskCache.getOrDraw(fileName, TreeApiController.encode(subsetTree::renderTree, renderType));
+            return ResponseEntity.ok()
+                    .headers(headers(renderType))
+                    .contentType(renderType)
+                    .body(permit.handOff(body));
+        }
+    }
 
-        // Create headers
+    private static HttpHeaders headers(MediaType renderType) {
         HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Disposition", "inline; filename=subset_tree.pdf");
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (renderType.equals(MediaType.APPLICATION_PDF)) {
+            headers.add("Content-Disposition", "inline; filename=subset_tree.pdf");
+        }
+        return headers;
+    }
 
-        return ResponseEntity
-                .ok()
-                .headers(headers)
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(new InputStreamResource(new ByteArrayInputStream(pdfBytes)));
+    /**
+     * Picks the render format from the Accept header, preferring the highest
+     * quality value and falling back to PDF when nothing else matches.
+     */
+    static MediaType selectRenderType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_PDF;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_PDF;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType acceptedType : accepted) {
+            for (MediaType renderType : RENDER_TYPES) {
+                if (acceptedType.includes(renderType)) {
+                    return renderType;
+                }
+            }
+        }
+        return MediaType.APPLICATION_PDF;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package nl.blitz.demo;
+
+/**
+ * SuperQueensConstraint places super-queens, which move like a queen and a
+ * knight, so on top of the queens constraint no two pieces may be a knight's
+ * move apart.
+ */
+public class SuperQueensConstraint extends NQueensConstraint {
+
+    public SuperQueensConstraint(int boardSize) {
+        super(boardSize);
+    }
+
+    @Override
+    public long conflicts(int row, int col, int otherRow) {
+        long attacked = super.conflicts(row, col, otherRow);
+        int distance = Math.abs(otherRow - row);
+        int jump = distance == 1 ? 2 : distance == 2 ? 1 : 0;
+        if (jump > 0) {
+            if (col + jump < boardSize) {
+                attacked |= 1L << (col + jump);
+            }
+            if (col - jump >= 0) {
+                attacked |= 1L << (col - jump);
+            }
+        }
+        return attacked;
+    }
+}
@@ -0,0 +1,211 @@
+package nl.blitz.demo;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * SvgRenderer streams an SVG document to a writer while drawing. Every
+ * painted path becomes a single {@code <path>} element, so a flushed
+ * {@link RenderBatch} produces one element per graphics state. SVG output
+ * holds a single page; y coordinates are flipped to SVG's top-left origin.
+ */
+public class SvgRenderer implements Renderer {
+    private static final String FONT_FAMILY = "Helvetica, Arial, sans-serif";
+
+    private final Writer out;
+    private float pageHeight;       // Height of the page, used to flip y
+    private boolean pageStarted;    // Whether the single SVG page has been started
+    private boolean pathOpen;       // Whether a <path d="..."> element is being written
+    private String strokeColor;
+    private float strokeWidth;
+    private String fillColor;
+
+    public SvgRenderer(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginPage(float width, float height) throws IOException {
+        if (pageStarted) {
+            throw new IllegalStateException("SVG output holds a single page");
+        }
+        pageStarted = true;
+        pageHeight = height;
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        writeNumber(width);
+        out.write("\" height=\"");
+        writeNumber(height);
+        out.write("\" viewBox=\"0 0 ");
+        writeNumber(width);
+        out.write(' ');
+        writeNumber(height);
+        out.write("\">\n<rect width=\"100%\" height=\"100%\" fill=\"#ffffff\"/>\n");
+    }
+
+    @Override
+    public void endPage() throws IOException {
+        out.write("</svg>\n");
+        out.flush();
+    }
+
+    @Override
+    public void setStrokeStyle(float r, float g, float b, float lineWidth) {
+        strokeColor = toHex(r, g, b);
+        strokeWidth = lineWidth;
+    }
+
+    @Override
+    public void setFillColor(float r, float g, float b) {
+        fillColor = toHex(r, g, b);
+    }
+
+    @Override
+    public void moveTo(float x, float y) throws IOException {
+        pathCommand('M');
+        writePoint(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) throws IOException {
+        pathCommand('L');
+        writePoint(x, y);
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) throws IOException {
+        pathCommand('C');
+        writePoint(x1, y1);
+        out.write(' ');
+        writePoint(x2, y2);
+        out.write(' ');
+        writePoint(x3, y3);
+    }
+
+    @Override
+    public void addRect(float x, float y, float width, float height) throws IOException {
+        // The rectangle's lower-left corner becomes its top-left corner after flipping y
+        pathCommand('M');
+        writePoint(x, y + height);
+        out.write('h');
+        writeNumber(width);
+        out.write('v');
+        writeNumber(height);
+        out.write('h');
+        writeNumber(-width);
+        out.write('z');
+    }
+
+    @Override
+    public void closePath() throws IOException {
+        pathCommand('Z');
+    }
+
+    @Override
+    public void stroke() throws IOException {
+        if (!pathOpen) {
+            return;
+        }
+        out.write("\" fill=\"none\" stroke=\"");
+        out.write(strokeColor);
+        out.write("\" stroke-width=\"");
+        writeNumber(strokeWidth);
+        out.write("\"/>\n");
+        pathOpen = false;
+    }
+
+    @Override
+    public void fill() throws IOException {
+        if (!pathOpen) {
+            return;
+        }
+        out.write("\" fill=\"");
+        out.write(fillColor);
+        out.write("\"/>\n");
+        pathOpen = false;
+    }
+
+    @Override
+    public void beginText(float fontSize, float r, float g, float b) throws IOException {
+        out.write("<g font-family=\"" + FONT_FAMILY + "\" font-size=\"");
+        writeNumber(fontSize);
+        out.write("\" fill=\"");
+        out.write(toHex(r, g, b));
+        out.write("\">\n");
+    }
+
+    @Override
+    public void showText(String text, float x, float y) throws IOException {
+        out.write("<text x=\"");
+        writeNumber(x);
+        out.write("\" y=\"");
+        writeNumber(pageHeight - y);
+        out.write("\">");
+        writeEscaped(text);
+        out.write("</text>\n");
+    }
+
+    @Override
+    public void endText() throws IOException {
+        out.write("</g>\n");
+    }
+
+    private void pathCommand(char command) throws IOException {
+        if (!pathOpen) {
+            out.write("<path d=\"");
+            pathOpen = true;
+        }
+        out.write(command);
+    }
+
+    private void writePoint(float x, float y) throws IOException {
+        writeNumber(x);
+        out.write(' ');
+        writeNumber(pageHeight - y);
+    }
+
+    /**
+     * Writes a number rounded to two decimals without allocating a String.
+     */
+    private void writeNumber(float value) throws IOException {
+        long scaled = Math.round(value * 100.0);
+        if (scaled < 0) {
+            out.write('-');
+            scaled = -scaled;
+        }
+        writeDigits(scaled / 100);
+        long fraction = scaled % 100;
+        if (fraction != 0) {
+            out.write('.');
+            out.write((char) ('0' + fraction / 10));
+            if (fraction % 10 != 0) {
+                out.write((char) ('0' + fraction % 10));
+            }
+        }
+    }
+
+    private void writeDigits(long value) throws IOException {
+        if (value >= 10) {
+            writeDigits(value / 10);
+        }
+        out.write((char) ('0' + value % 10));
+    }
+
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.write("&lt;");
+                case '>' -> out.write("&gt;");
+                case '&' -> out.write("&amp;");
+                case '"' -> out.write("&quot;");
+                default -> out.write(c);
+            }
+        }
+    }
+
+    private static String toHex(float r, float g, float b) {
+        int rgb = (Math.round(r * 255) << 16) | (Math.round(g * 255) << 8) | Math.round(b * 255);
+        return String.format("#%06x", rgb);
+    }
+}
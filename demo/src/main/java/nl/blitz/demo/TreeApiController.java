@@ -0,0 +1,429 @@
+package nl.blitz.demo;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * TreeApiController exposes every tree family under /api/trees/{family}.
+ * Counts, JSON pages and NDJSON streams come from the rank-based enumerations,
+ * so a page of results costs the same wherever it starts and no tree is built; only the
+ * render endpoint builds the tree, and is limited to inputs that fit on a page.
+ * <p>
+ * Elements are passed as {@code ?elements=a,b,c} or as {@code ?size=n} for
+ * the elements 1..n; N-Queens takes the board size as {@code ?size=n}.
+ * Elements must be distinct, except for multiset permutations, where
+ * repeated elements are interchangeable. Renders take {@code ?maxDepth=d}
+ * and {@code ?minBand=points} to collapse deep or crowded subtrees into a
+ * leaf count, see {@link LevelOfDetail}.
+ * <p>
+ * Renders, streams and N-Queens searches go through {@link AdmissionControl}:
+ * their cost is estimated up front and refused with 413 when it is over the
+ * budget, and they queue for a limited number of slots (429 when full).
+ */
+@RestController
+@RequestMapping("/api/trees")
+public class TreeApiController {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final MediaType IMAGE_SVG = MediaType.parseMediaType("image/svg+xml");
+    private static final float PNG_SCALE = 2f;
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final AdmissionControl admission;
+    private final PrerenderCache prerendered;
+    private final DiskCache diskCache;
+
+    public TreeApiController(ObjectMapper objectMapper, AdmissionControl admission, PrerenderCache prerendered,
+                             DiskCache diskCache) {
+        this.objectMapper = objectMapper;
+        this.admission = admission;
+        this.prerendered = prerendered;
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * The tree families, with the largest input each one will render.
+     */
+    enum Family {
+        SUBSET("subset", 8),
+        REVERSE_SUBSET("reverse-subset", 12),   // Drawn layer by layer, without building the tree
+        PERMUTATION("permutation", 0),
+        MULTISET_PERMUTATION("multiset-permutation", 0),
+        COLOR_PERMUTATION("color-permutation", 6),
+        SUBSET_PERMUTATION("subset-permutation", 0),
+        N_QUEENS("n-queens", 10);
+
+        final String path;
+        final int maxRenderSize;   // 0 when the family has no drawing
+
+        Family(String path, int maxRenderSize) {
+            this.path = path;
+            this.maxRenderSize = maxRenderSize;
+        }
+
+        static Family fromPath(String path) {
+            for (Family family : values()) {
+                if (family.path.equals(path)) {
+                    return family;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown tree family: " + path);
+        }
+    }
+
+    /**
+     * One result: its rank in tree order and its elements.
+     */
+    public record Result(long rank, List<Object> elements) {
+    }
+
+    public record CountResponse(String family, List<Object> elements, long count) {
+    }
+
+    public record ResultPage(String family, long count, long offset, int limit, List<Result> results) {
+    }
+
+    @GetMapping("/{family}/count")
+    public CountResponse count(@PathVariable String family,
+                               @RequestParam(required = false) List<String> elements,
+                               @RequestParam(required = false) Integer size) {
+        Family treeFamily = Family.fromPath(family);
+        List<Object> labels = resolveElements(treeFamily, elements, size);
+        try (AdmissionControl.Permit permit = admitSearch(treeFamily, labels)) {
+            return new CountResponse(treeFamily.path, labels, enumerate(treeFamily, labels).count());
+        }
+    }
+
+    @GetMapping("/{family}/results")
+    public ResultPage results(@PathVariable String family,
+                              @RequestParam(required = false) List<String> elements,
+                              @RequestParam(required = false) Integer size,
+                              @RequestParam(defaultValue = "0") long offset,
+                              @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) throws IOException {
+        if (offset < 0 || limit < 0 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Offset must be non-negative and limit between 0 and " + MAX_PAGE_SIZE);
+        }
+        Family treeFamily = Family.fromPath(family);
+        List<Object> labels = resolveElements(treeFamily, elements, size);
+        RankedEnumeration enumeration = enumerate(treeFamily, labels);
+
+        try (AdmissionControl.Permit permit = admitSearch(treeFamily, labels)) {
+            List<Result> results = new ArrayList<>(limit);
+            enumeration.forEach(offset, limit, (rank, indices, length) -> results.add(new Result(rank, map(labels, indices, length))));
+            long count = treeFamily == Family.N_QUEENS && offset == 0 && results.size() < limit
+                    ? results.size()   // The whole listing was searched anyway
+                    : enumeration.count();
+            return new ResultPage(treeFamily.path, count, offset, limit, results);
+        }
+    }
+
+    /**
+     * Streams results as NDJSON, one {@code {"rank":..,"elements":[..]}} object
+     * per line, straight from the enumeration. Memory use does not depend on
+     * offset or limit; without a limit the stream runs to the last result.
+     */
+    @GetMapping(value = "/{family}/stream", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@PathVariable String family,
+                                                        @RequestParam(required = false) List<String> elements,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(defaultValue = "0") long offset,
+                                                        @RequestParam(defaultValue = "" + Long.MAX_VALUE) long limit) throws IOException {
+        if (offset < 0 || limit < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset and limit must be non-negative");
+        }
+        Family treeFamily = Family.fromPath(family);
+        List<Object> labels = resolveElements(treeFamily, elements, size);
+        RankedEnumeration enumeration = enumerate(treeFamily, labels);
+        // Encode every element once, before taking a slot; each line is then assembled in a reused buffer
+        List<String> encoded = new ArrayList<>(labels.size());
+        for (Object label : labels) {
+            encoded.add(objectMapper.writeValueAsString(label));
+        }
+        try (AdmissionControl.Permit permit = treeFamily == Family.N_QUEENS
+                ? admitSearch(treeFamily, labels)
+                : admission.admit(AdmissionControl.Work.STREAM, Math.min(limit, Math.max(enumeration.count() - offset, 0)))) {
+            StreamingResponseBody body = permit.handOff(outputStream -> {
+                LabelFormatter formatter = LabelFormatter.json(encoded);
+                OutputStream out = new BufferedOutputStream(outputStream, STREAM_BUFFER_SIZE);
+                enumeration.forEach(offset, limit, (rank, indices, length) -> formatter.clear()
+                        .append("{\"rank\":").append(rank)
+                        .append(",\"elements\":").appendResult(indices, length)
+                        .append("}\n")
+                        .writeTo(out));
+                out.flush();
+            });
+            return ResponseEntity.ok()
+                    .contentType(NDJSON)
+                    .body(body);
+        }
+    }
+
+    @GetMapping("/{family}/results/{rank}")
+    public Result result(@PathVariable String family,
+                         @PathVariable long rank,
+                         @RequestParam(required = false) List<String> elements,
+                         @RequestParam(required = false) Integer size) {
+        Family treeFamily = Family.fromPath(family);
+        List<Object> labels = resolveElements(treeFamily, elements, size);
+        RankedEnumeration enumeration = enumerate(treeFamily, labels);
+        try (AdmissionControl.Permit permit = admitSearch(treeFamily, labels)) {
+            if (rank < 0 || rank >= enumeration.count()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No result with rank " + rank);
+            }
+            int[] indices = new int[enumeration.getMaxLength()];
+            int length = enumeration.unrank(rank, indices);
+            return new Result(rank, map(labels, indices, length));
+        }
+    }
+
+    @GetMapping("/{family}/render")
+    public ResponseEntity<StreamingResponseBody> render(@PathVariable String family,
+                                                        @RequestParam(required = false) List<String> elements,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(required = false) Integer maxDepth,
+                                                        @RequestParam(required = false) Float minBand,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Family treeFamily = Family.fromPath(family);
+        if (treeFamily.maxRenderSize == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The " + treeFamily.path + " family has no drawing");
+        }
+        List<Object> labels = resolveElements(treeFamily, elements, size);
+        if (labels.size() > treeFamily.maxRenderSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The " + treeFamily.path + " family renders at most " + treeFamily.maxRenderSize + " elements");
+        }
+        LevelOfDetail detail = levelOfDetail(maxDepth, minBand);
+        MediaType renderType = treeFamily == Family.N_QUEENS
+                ? MediaType.APPLICATION_PDF   // Solutions span several pages
+                : SubsetTreeController.selectRenderType(accept);
+
+        if (elements == null && detail.equals(LevelOfDetail.FULL)) {
+            StreamingResponseBody cached = prerendered.get(treeFamily, labels.size(), renderType);
+            if (cached != null) {
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                        .contentType(renderType)
+                        .body(cached);
+            }
+        }
+
+        String fileName = DiskCache.fileName(treeFamily, labels, detail, renderType);
+        StreamingResponseBody stored = diskCache.get(fileName);
+        if (stored != null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .contentType(renderType)
+                    .body(stored);
+        }
+
+        // The slot is held from building the tree until the drawing is written
+        try (AdmissionControl.Permit permit = admission.admit(AdmissionControl.Work.RENDER, renderCost(treeFamily, labels.size()))) {
+            StreamingResponseBody body = diskCache.getOrDraw(fileName, encode(drawing(treeFamily, labels, detail), renderType));
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .contentType(renderType)
+                    .body(permit.handOff(body));
+        }
+    }
+
+    /**
+     * Writes a drawing as PDF, SVG or PNG.
+     */
+    static StreamingResponseBody encode(TreeDrawing drawing, MediaType renderType) {
+        if (renderType.equals(IMAGE_SVG)) {
+            return outputStream -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                drawing.render(new SvgRenderer(writer));
+                writer.flush();
+            };
+        }
+        if (renderType.equals(MediaType.IMAGE_PNG)) {
+            return outputStream -> drawing.render(new PngRenderer(outputStream, PNG_SCALE));
+        }
+        return outputStream -> {
+            try (PdfRenderer renderer = new PdfRenderer()) {
+                drawing.render(renderer);
+                renderer.save(outputStream);
+            }
+        };
+    }
+
+    /**
+     * Returns the number of nodes a drawing of the family builds.
+     */
+    private static long renderCost(Family family, int n) {
+        return switch (family) {
+            case SUBSET, REVERSE_SUBSET -> SubsetTree.nodeCount(n);
+            case COLOR_PERMUTATION -> ColorPermutationTree.nodeCount(n);
+            case N_QUEENS -> NQueensEnumeration.estimateSearchNodes(n);
+            default -> throw new IllegalArgumentException("No drawing for " + family);
+        };
+    }
+
+    /**
+     * Admits a request that lists N-Queens solutions, which searches the board
+     * for its count, page or rank; the other families have closed forms and
+     * answer those in time proportional to the page.
+     * @return The permit to close once answered, or null when the family needs none
+     */
+    private AdmissionControl.Permit admitSearch(Family family, List<Object> labels) {
+        if (family != Family.N_QUEENS) {
+            return null;
+        }
+        return admission.admit(AdmissionControl.Work.SEARCH, NQueensEnumeration.estimateSearchNodes(labels.size()));
+    }
+
+    /**
+     * Draws one tree through a renderer.
+     */
+    @FunctionalInterface
+    interface TreeDrawing {
+        void render(Renderer renderer) throws IOException;
+    }
+
+    /**
+     * Collapses subtrees below maxDepth, or packed into fewer than minBand points;
+     * without either, the whole tree is drawn.
+     */
+    private static LevelOfDetail levelOfDetail(Integer maxDepth, Float minBand) {
+        if ((maxDepth != null && maxDepth < 0) || (minBand != null && !(minBand >= 0))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxDepth and minBand must be non-negative");
+        }
+        return new LevelOfDetail(maxDepth == null ? LevelOfDetail.FULL.maxDepth() : maxDepth,
+                minBand == null ? LevelOfDetail.FULL.minBand() : minBand);
+    }
+
+    static TreeDrawing drawing(Family family, List<Object> labels, LevelOfDetail detail) {
+        return switch (family) {
+            case SUBSET -> {
+                SubsetTree tree = new SubsetTree(toIntegers(labels));
+                yield renderer -> tree.renderTree(renderer, detail);
+            }
+            case REVERSE_SUBSET -> {
+                List<Integer> numbers = toIntegers(labels);
+                yield renderer -> SubsetTree.renderReverseTree(numbers, renderer);
+            }
+            case COLOR_PERMUTATION -> {
+                ColorPermutationTree tree = new ColorPermutationTree(toStrings(labels));
+                yield renderer -> tree.renderTree(renderer, ColorPermutationTree.DrawMode.FULL, detail);
+            }
+            case N_QUEENS -> new NQueensSubsetTree(labels.size())::renderSolutions;
+            default -> throw new IllegalArgumentException("No drawing for " + family);
+        };
+    }
+
+    private static RankedEnumeration enumerate(Family family, List<Object> labels) {
+        int n = labels.size();
+        return switch (family) {
+            case SUBSET, REVERSE_SUBSET -> new SubsetEnumeration(n);
+            case PERMUTATION, COLOR_PERMUTATION -> new PermutationEnumeration(n);
+            case MULTISET_PERMUTATION -> new MultisetPermutationEnumeration(labels);
+            case SUBSET_PERMUTATION -> new SubsetPermutationEnumeration(n);
+            case N_QUEENS -> new NQueensEnumeration(n);
+        };
+    }
+
+    /**
+     * Works out the element list of a request and checks it against the
+     * limits of the family's enumeration. For N-Queens the elements are the
+     * column numbers 0..n-1.
+     */
+    static List<Object> resolveElements(Family family, List<String> elements, Integer size) {
+        int maxElements = switch (family) {
+            case SUBSET, REVERSE_SUBSET -> SubsetEnumeration.MAX_ELEMENTS;
+            case PERMUTATION, COLOR_PERMUTATION -> PermutationEnumeration.MAX_ELEMENTS;
+            case MULTISET_PERMUTATION -> MultisetPermutationEnumeration.MAX_ELEMENTS;
+            case SUBSET_PERMUTATION -> SubsetPermutationEnumeration.MAX_ELEMENTS;
+            case N_QUEENS -> NQueensEnumeration.MAX_BOARD_SIZE;
+        };
+        if (family == Family.N_QUEENS) {
+            if (size == null || size < 1 || size > maxElements) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Board size must be between 1 and " + maxElements);
+            }
+            return IntStream.range(0, size).boxed().collect(Collectors.toList());
+        }
+
+        if (elements == null && (size == null || size < 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Pass either elements or size");
+        }
+        // Checked before the list is built, so a huge size costs nothing
+        int requested = elements != null ? elements.size() : size;
+        if (requested > maxElements) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The " + family.path + " family supports at most " + maxElements + " elements");
+        }
+        List<Object> labels = elements != null
+                ? new ArrayList<>(elements)
+                : IntStream.rangeClosed(1, size).boxed().collect(Collectors.toList());
+        if (family == Family.MULTISET_PERMUTATION) {
+            // Repeats are the point here, but the count must still fit in a long
+            try {
+                new MultisetPermutationEnumeration(labels);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        } else if (new HashSet<>(labels).size() != labels.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Elements must be distinct");
+        }
+        return labels;
+    }
+
+    private static List<Object> map(List<Object> labels, int[] indices, int length) {
+        List<Object> result = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            result.add(labels.get(indices[i]));
+        }
+        return result;
+    }
+
+    private static List<Integer> toIntegers(List<Object> labels) {
+        List<Integer> numbers = new ArrayList<>(labels.size());
+        for (Object label : labels) {
+            try {
+                numbers.add(label instanceof Integer number ? number : Integer.parseInt(label.toString().trim()));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Subset trees are drawn for integer elements: " + label);
+            }
+        }
+        return numbers;
+    }
+
+    private static List<String> toStrings(List<Object> labels) {
+        List<String> strings = new ArrayList<>(labels.size());
+        for (Object label : labels) {
+            strings.add(label.toString());
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,187 @@
+package nl.blitz.demo;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * TreePrinter writes the ASCII tree dumps of the tree classes ("+-- " and
+ * "\-- " connectors under "|   " and "    " indents) through one large buffer.
+ * The indent of the current depth is kept in a single char array that grows
+ * and shrinks as the caller descends and returns, so printing a node copies
+ * chars instead of concatenating prefix Strings, and the console sees a few
+ * large writes instead of one synchronized println per node.
+ * <p>
+ * The tree classes keep their own recursion and call {@link #node}, {@link #indent}
+ * and {@link #outdent}; output is only guaranteed to be written after {@link #flush()}.
+ */
+public class TreePrinter {
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static final char[] LAST_CONNECTOR = "\\-- ".toCharArray();
+    private static final char[] CONNECTOR = "+-- ".toCharArray();
+    private static final char[] LAST_INDENT = "    ".toCharArray();
+    private static final char[] INDENT = "|   ".toCharArray();
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private char[] prefix = new char[64];
+    private int prefixLength;
+
+    /**
+     * Creates a printer writing to any Appendable through a {@link #BUFFER_SIZE} buffer.
+     */
+    public TreePrinter(Appendable out) {
+        Writer target = out instanceof Writer writer ? writer : new AppendableWriter(out);
+        this.out = new BufferedWriter(target, BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a printer for standard output, in its charset.
+     */
+    public static TreePrinter console() {
+        return new TreePrinter(new OutputStreamWriter(System.out, System.out.charset()));
+    }
+
+    /**
+     * Runs a printing task against standard output and flushes it, turning
+     * write errors into unchecked exceptions like System.out would hide them.
+     */
+    public static void toConsole(Task task) {
+        TreePrinter printer = console();
+        try {
+            task.print(printer);
+            printer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Printing work that writes to a TreePrinter.
+     */
+    @FunctionalInterface
+    public interface Task {
+        void print(TreePrinter printer) throws IOException;
+    }
+
+    /**
+     * Writes one node line: the current indent, a connector and the label.
+     */
+    public TreePrinter node(boolean isLast, String label) throws IOException {
+        writeConnector(isLast);
+        out.write(label);
+        return newLine();
+    }
+
+    /**
+     * Writes one node line whose label is a fixed prefix followed by text,
+     * such as "Permutation: [a, b]", without concatenating the two.
+     */
+    public TreePrinter node(boolean isLast, String labelPrefix, String label) throws IOException {
+        writeConnector(isLast);
+        out.write(labelPrefix);
+        out.write(label);
+        return newLine();
+    }
+
+    /**
+     * Writes one node line whose label is the current content of a formatter.
+     */
+    public TreePrinter node(boolean isLast, LabelFormatter label) throws IOException {
+        writeConnector(isLast);
+        label.writeTo(out);
+        return newLine();
+    }
+
+    private void writeConnector(boolean isLast) throws IOException {
+        out.write(prefix, 0, prefixLength);
+        out.write(isLast ? LAST_CONNECTOR : CONNECTOR);
+    }
+
+    /**
+     * Descends one level below a node printed with the same isLast flag.
+     */
+    public TreePrinter indent(boolean isLast) {
+        char[] indent = isLast ? LAST_INDENT : INDENT;
+        if (prefixLength + indent.length > prefix.length) {
+            prefix = Arrays.copyOf(prefix, prefix.length * 2);
+        }
+        System.arraycopy(indent, 0, prefix, prefixLength, indent.length);
+        prefixLength += indent.length;
+        return this;
+    }
+
+    /**
+     * Returns to the parent level.
+     */
+    public TreePrinter outdent() {
+        prefixLength -= INDENT.length;
+        return this;
+    }
+
+    /**
+     * Writes free text, such as headings and traversal listings.
+     */
+    public TreePrinter print(String text) throws IOException {
+        out.write(text);
+        return this;
+    }
+
+    public TreePrinter print(long value) throws IOException {
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public TreePrinter println(String text) throws IOException {
+        out.write(text);
+        return newLine();
+    }
+
+    public TreePrinter println(LabelFormatter text) throws IOException {
+        text.writeTo(out);
+        return newLine();
+    }
+
+    public TreePrinter newLine() throws IOException {
+        out.write(LINE_SEPARATOR);
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Minimal Writer over an Appendable; only ever called with full buffers.
+     */
+    private static class AppendableWriter extends Writer {
+        private final Appendable target;
+
+        AppendableWriter(Appendable target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            target.append(CharBuffer.wrap(chars, offset, length));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target instanceof Flushable flushable) {
+                flushable.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
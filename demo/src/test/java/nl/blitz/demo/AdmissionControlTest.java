@@ -0,0 +1,99 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class AdmissionControlTest {
+    // One slot, one queued request and a short wait, so a held slot shows up as a 429
+    private final AdmissionControl admission = new AdmissionControl(100, 100, 100, 1, 1, 50);
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void bindRequest() {
+        request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+
+    @AfterEach
+    void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void refusesWorkOverBudget() {
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> admission.admit(AdmissionControl.Work.RENDER, 101));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, refused.getStatusCode());
+    }
+
+    @Test
+    void holdsAHandedOffSlotUntilTheBodyIsWritten() throws IOException {
+        StreamingResponseBody body;
+        try (AdmissionControl.Permit permit = admission.admit(AdmissionControl.Work.STREAM, 1)) {
+            body = permit.handOff(outputStream -> outputStream.write('x'));
+        }
+        assertSlotTaken();
+
+        body.writeTo(new ByteArrayOutputStream());
+        admission.admit(AdmissionControl.Work.STREAM, 1).close();
+    }
+
+    @Test
+    void releasesTheSlotWhenTheBodyNeverRuns() throws Exception {
+        StreamingResponseBody body;
+        try (AdmissionControl.Permit permit = admission.admit(AdmissionControl.Work.STREAM, 1)) {
+            body = permit.handOff(outputStream -> outputStream.write('x'));
+        }
+
+        // Start the response as Spring MVC does, on an executor that never runs it
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        asyncManager.setTaskExecutor(new ConcurrentTaskExecutor(task -> { }));
+        asyncManager.startCallableProcessing(() -> {
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
+        assertSlotTaken();
+
+        // The container completes the request, e.g. after a timeout or a client abort
+        request.getAsyncContext().complete();
+        admission.admit(AdmissionControl.Work.STREAM, 1).close();
+    }
+
+    @Test
+    void releasesTheSlotWhenTheRequestFailsBeforeHandOff() {
+        assertThrows(IllegalStateException.class, () -> {
+            try (AdmissionControl.Permit permit = admission.admit(AdmissionControl.Work.STREAM, 1)) {
+                throw new IllegalStateException("Encoding failed");
+            }
+        });
+        admission.admit(AdmissionControl.Work.STREAM, 1).close();
+    }
+
+    private void assertSlotTaken() {
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> admission.admit(AdmissionControl.Work.STREAM, 1));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, refused.getStatusCode());
+    }
+}
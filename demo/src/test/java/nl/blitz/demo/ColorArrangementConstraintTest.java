@@ -0,0 +1,112 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+class ColorArrangementConstraintTest {
+    private static final List<String> COLORS = List.of("red", "green", "blue", "yellow", "black", "white");
+
+    @Test
+    void countsArrangementsWithoutAdjacentPairs() throws IOException {
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(COLORS)
+            .banAdjacent("red", "green")
+            .banAdjacent("blue", "yellow");
+        assertCounts(constraint, order -> !adjacent(order, 0, 1) && !adjacent(order, 2, 3));
+    }
+
+    @Test
+    void countsArrangementsWithPinnedColors() throws IOException {
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(COLORS)
+            .pin("blue", 0)
+            .pin("white", 5);
+        // The four other colors fill the middle in any order
+        assertEquals(24, assertCounts(constraint, order -> order[0] == 2 && order[5] == 5));
+    }
+
+    @Test
+    void countsArrangementsWithPrecedence() throws IOException {
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(COLORS)
+            .requireBefore("red", "green")
+            .requireBefore("green", "blue");
+        // One of the 3! relative orders of red, green and blue is allowed
+        assertEquals(720 / 6, assertCounts(constraint, order -> before(order, 0, 1) && before(order, 1, 2)));
+    }
+
+    @Test
+    void countsArrangementsWithAllRules() throws IOException {
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(COLORS)
+            .banAdjacent("black", "white")
+            .pin("yellow", 2)
+            .requireBefore("green", "red");
+        assertCounts(constraint, order -> !adjacent(order, 4, 5) && order[2] == 3 && before(order, 1, 0));
+    }
+
+    @Test
+    void keepsAnEmptyTreeWhenNothingIsAllowed() {
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(List.of("red", "green"))
+            .requireBefore("red", "green")
+            .requireBefore("green", "red");
+        assertEquals(0, new ConstraintSearch(constraint).countSolutions());
+        ColorPermutationTree tree = new ColorPermutationTree(constraint.getColors(), constraint);
+        assertEquals(0, tree.getSubsetCount());
+        assertEquals(0, tree.getPruningStats().arrangements());
+    }
+
+    @Test
+    void rejectsConflictingPins() {
+        ColorArrangementConstraint constraint = new ColorArrangementConstraint(COLORS).pin("red", 0);
+        assertThrows(IllegalArgumentException.class, () -> constraint.pin("green", 0));
+        assertThrows(IllegalArgumentException.class, () -> constraint.pin("red", 1));
+        assertThrows(IllegalArgumentException.class, () -> constraint.banAdjacent("red", "purple"));
+    }
+
+    /**
+     * Checks that the search engine and the pruned tree both count the
+     * permutations the rule accepts, and returns that count.
+     */
+    private static long assertCounts(ColorArrangementConstraint constraint, Predicate<int[]> rule) throws IOException {
+        long[] expected = new long[1];
+        new PermutationEnumeration(COLORS.size()).forEach(0, Long.MAX_VALUE, (rank, order, length) -> {
+            if (rule.test(order)) {
+                expected[0]++;
+            }
+        });
+
+        assertEquals(expected[0], new ConstraintSearch(constraint).countSolutions());
+        ColorPermutationTree tree = new ColorPermutationTree(COLORS, constraint);
+        ColorPermutationTree.PruningStats stats = tree.getPruningStats();
+        assertEquals(expected[0], stats.arrangements());
+        assertEquals(expected[0], tree.getSubsetCount());
+        // Rejected choices were never expanded
+        assertTrue(stats.nodesBuilt() < ColorPermutationTree.nodeCount(COLORS.size()));
+        return expected[0];
+    }
+
+    private static boolean adjacent(int[] order, int a, int b) {
+        for (int i = 0; i + 1 < order.length; i++) {
+            if ((order[i] == a && order[i + 1] == b) || (order[i] == b && order[i + 1] == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean before(int[] order, int a, int b) {
+        for (int color : order) {
+            if (color == a) {
+                return true;
+            }
+            if (color == b) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
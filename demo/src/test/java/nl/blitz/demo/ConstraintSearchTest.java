@@ -0,0 +1,101 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConstraintSearchTest {
+    // Number of N-Queens solutions for n = 1..10 (OEIS A000170)
+    private static final long[] N_QUEENS_COUNTS = {1, 0, 0, 2, 10, 4, 40, 92, 352, 724};
+
+    @Test
+    void countsNQueensSolutions() {
+        for (int n = 1; n <= N_QUEENS_COUNTS.length; n++) {
+            ConstraintSearch search = new ConstraintSearch(new NQueensConstraint(n));
+            assertEquals(N_QUEENS_COUNTS[n - 1], search.countSolutions(), "n = " + n);
+            assertEquals(N_QUEENS_COUNTS[n - 1], search.countSolutionsParallel(), "parallel, n = " + n);
+        }
+    }
+
+    @Test
+    void findsOnlyValidPlacements() {
+        List<int[]> solutions = new ConstraintSearch(new NQueensConstraint(8)).findAllSolutions();
+        assertEquals(92, solutions.size());
+        for (int[] placement : solutions) {
+            for (int row = 0; row < placement.length; row++) {
+                for (int other = row + 1; other < placement.length; other++) {
+                    assertTrue(placement[row] != placement[other]);
+                    assertTrue(Math.abs(placement[row] - placement[other]) != other - row);
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsPreplacedQueens() {
+        List<int[]> solutions = new ConstraintSearch(new NQueensConstraint(8, Map.of(0, 0))).findAllSolutions();
+        assertEquals(4, solutions.size());
+        for (int[] placement : solutions) {
+            assertEquals(0, placement[0]);
+        }
+    }
+
+    @Test
+    void rejectsQueensOffTheBoard() {
+        for (Map<Integer, Integer> preplaced : List.of(Map.of(8, 0), Map.of(-1, 0), Map.of(0, 8), Map.of(0, -1), Map.of(0, 64))) {
+            assertThrows(IllegalArgumentException.class, () -> new NQueensConstraint(8, preplaced), preplaced.toString());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new NQueensConstraint(0));
+        assertThrows(IllegalArgumentException.class, () -> new NQueensConstraint(65));
+    }
+
+    @Test
+    void copiesPreplacedQueens() {
+        Map<Integer, Integer> preplaced = new HashMap<>(Map.of(0, 0));
+        NQueensConstraint constraint = new NQueensConstraint(8, preplaced);
+        preplaced.put(1, 2);
+        assertEquals(4, new ConstraintSearch(constraint).countSolutions());
+    }
+
+    @Test
+    void countsSuperQueens() {
+        // Super-queens also move as knights; 10 is the smallest board with a solution
+        assertEquals(0, new ConstraintSearch(new SuperQueensConstraint(9)).countSolutions());
+        assertEquals(4, new ConstraintSearch(new SuperQueensConstraint(10)).countSolutions());
+    }
+
+    @Test
+    void countsRooksAvoidingBlockedCells() {
+        assertEquals(720, new ConstraintSearch(new NRooksConstraint(6, new long[6])).countSolutions());
+
+        // Blocking the diagonal leaves the derangements of 5 elements
+        long[] diagonal = new long[5];
+        for (int row = 0; row < diagonal.length; row++) {
+            diagonal[row] = 1L << row;
+        }
+        assertEquals(44, new ConstraintSearch(new NRooksConstraint(5, diagonal)).countSolutions());
+
+        // A fully blocked row leaves nothing to search
+        long[] blockedRow = new long[3];
+        blockedRow[1] = 0b111;
+        assertEquals(0, new ConstraintSearch(new NRooksConstraint(3, blockedRow)).countSolutions());
+    }
+
+    @Test
+    void findsSolutionsInSearchOrderRepeatably() {
+        ConstraintSearch search = new ConstraintSearch(new NQueensConstraint(6));
+        List<int[]> first = search.findAllSolutions();
+        List<int[]> second = search.findAllSolutions();
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i), second.get(i));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class DancingLinksTest {
+    // Number of N-Queens solutions for n = 1..10 (OEIS A000170)
+    private static final long[] N_QUEENS_COUNTS = {1, 0, 0, 2, 10, 4, 40, 92, 352, 724};
+
+    @Test
+    void solvesKnuthsExample() {
+        // The 7-column matrix from Knuth's "Dancing Links" paper has one exact cover: rows 0, 3 and 4
+        DancingLinks matrix = new DancingLinks(7, 0);
+        matrix.addRow(2, 4, 5);
+        matrix.addRow(0, 3, 6);
+        matrix.addRow(1, 2, 5);
+        matrix.addRow(0, 3);
+        matrix.addRow(1, 6);
+        matrix.addRow(3, 4, 6);
+
+        List<int[]> solutions = new ArrayList<>();
+        assertEquals(1, matrix.solve(solutions::add));
+        int[] rows = solutions.get(0).clone();
+        Arrays.sort(rows);
+        assertArrayEquals(new int[] {0, 3, 4}, rows);
+
+        // Solving again restores the links first covered
+        assertEquals(1, matrix.countSolutions());
+    }
+
+    @Test
+    void leavesSecondaryColumnsUncovered() {
+        // Column 1 is secondary: covering it is optional, but at most once
+        DancingLinks matrix = new DancingLinks(1, 1);
+        matrix.addRow(0);
+        matrix.addRow(0, 1);
+        assertEquals(2, matrix.countSolutions());
+    }
+
+    @Test
+    void rejectsUnknownColumns() {
+        DancingLinks matrix = new DancingLinks(2, 1);
+        assertThrows(IllegalArgumentException.class, () -> matrix.addRow(0, 3));
+    }
+
+    @Test
+    void countsNQueensSolutions() {
+        for (int n = 1; n <= N_QUEENS_COUNTS.length; n++) {
+            assertEquals(N_QUEENS_COUNTS[n - 1], new NQueensExactCover(n).countSolutions(), "n = " + n);
+        }
+    }
+
+    @Test
+    void findsTheSameSolutionsAsBacktracking() {
+        Set<List<Integer>> exactCover = Set.copyOf(new NQueensExactCover(8).findSolutions());
+        Set<List<Integer>> backtracking = new ConstraintSearch(new NQueensConstraint(8)).findAllSolutions().stream()
+            .map(placement -> Arrays.stream(placement).boxed().collect(Collectors.toList()))
+            .collect(Collectors.toSet());
+        assertEquals(92, exactCover.size());
+        assertEquals(backtracking, exactCover);
+    }
+}
@@ -0,0 +1,148 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class DiskCacheTest {
+    private static final byte[] CONTENT = "drawing".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void drawsOnceForConcurrentRequests() throws Exception {
+        DiskCache cache = new DiskCache(directory.toString(), 1 << 20);
+        AtomicInteger draws = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StreamingResponseBody drawing = out -> {
+            draws.incrementAndGet();
+            started.countDown();
+            await(release);
+            out.write(CONTENT);
+        };
+
+        // All bodies are created before anything is cached, as concurrent requests would be
+        int requests = 8;
+        List<StreamingResponseBody> bodies = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            bodies.add(cache.getOrDraw("tree.svg", drawing));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<byte[]>> responses = new ArrayList<>();
+            responses.add(executor.submit(() -> write(bodies.get(0))));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (StreamingResponseBody body : bodies.subList(1, requests)) {
+                responses.add(executor.submit(() -> write(body)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<byte[]> response : responses) {
+                assertArrayEquals(CONTENT, response.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, draws.get());
+        assertNotNull(cache.get("tree.svg"));
+    }
+
+    @Test
+    void failsWaitingRequestsWithTheFirstDrawing() throws Exception {
+        DiskCache cache = new DiskCache(directory.toString(), 1 << 20);
+        AtomicInteger draws = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StreamingResponseBody failing = out -> {
+            draws.incrementAndGet();
+            started.countDown();
+            await(release);
+            throw new IOException("Renderer failed");
+        };
+
+        int requests = 8;
+        List<StreamingResponseBody> bodies = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            bodies.add(cache.getOrDraw("tree.pdf", failing));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<byte[]>> responses = new ArrayList<>();
+            responses.add(executor.submit(() -> write(bodies.get(0))));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (StreamingResponseBody body : bodies.subList(1, requests)) {
+                responses.add(executor.submit(() -> write(body)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<byte[]> response : responses) {
+                ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> response.get(10, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, failure.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, draws.get());
+
+        // The failure is not cached; the next request draws again
+        assertArrayEquals(CONTENT, write(cache.getOrDraw("tree.pdf", out -> out.write(CONTENT))));
+    }
+
+    @Test
+    void drawsAgainWhenTheFileIsEvictedAtOnce() throws Exception {
+        // Larger than the bound, so every drawing is evicted as soon as it is opened
+        DiskCache cache = new DiskCache(directory.toString(), CONTENT.length - 1);
+        assertArrayEquals(CONTENT, write(cache.getOrDraw("tree.svg", out -> out.write(CONTENT))));
+        assertArrayEquals(CONTENT, write(cache.getOrDraw("tree.svg", out -> out.write(CONTENT))));
+        assertNull(cache.get("tree.svg"));
+    }
+
+    @Test
+    void keepsDrawingsAcrossRestarts() throws IOException {
+        new DiskCache(directory.toString(), 1 << 20).getOrDraw("tree.png", out -> out.write(CONTENT))
+            .writeTo(new ByteArrayOutputStream());
+        StreamingResponseBody stored = new DiskCache(directory.toString(), 1 << 20).get("tree.png");
+        assertNotNull(stored);
+        assertArrayEquals(CONTENT, write(stored));
+    }
+
+    private static byte[] write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
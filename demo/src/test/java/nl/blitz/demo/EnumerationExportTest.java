@@ -0,0 +1,130 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EnumerationExportTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsSubsetsAsBitmasks() throws IOException {
+        // 12 elements need a two-byte mask
+        SubsetEnumeration subsets = new SubsetEnumeration(12);
+        Path file = directory.resolve("subsets.bin");
+        assertEquals(subsets.count(), EnumerationExport.write(subsets, 12, 0, Long.MAX_VALUE, file));
+        assertEquals(EnumerationExport.HEADER_SIZE + subsets.count() * 2, Files.size(file));
+        try (EnumerationExport.Reader reader = EnumerationExport.open(file)) {
+            assertEquals(EnumerationExport.Layout.BITMASK, reader.getLayout());
+            assertRoundTrip(subsets, 0, subsets.count(), reader);
+        }
+    }
+
+    @Test
+    void roundTripsPermutations() throws IOException {
+        PermutationEnumeration permutations = new PermutationEnumeration(6);
+        Path file = directory.resolve("permutations.bin");
+        EnumerationExport.write(permutations, 6, 0, Long.MAX_VALUE, file);
+        try (EnumerationExport.Reader reader = EnumerationExport.open(file)) {
+            assertEquals(EnumerationExport.Layout.PERMUTATION, reader.getLayout());
+            assertRoundTrip(permutations, 0, permutations.count(), reader);
+        }
+    }
+
+    @Test
+    void roundTripsArrangementsOfEveryLength() throws IOException {
+        SubsetPermutationEnumeration arrangements = new SubsetPermutationEnumeration(5);
+        Path file = directory.resolve("arrangements.bin");
+        EnumerationExport.write(arrangements, 5, 0, Long.MAX_VALUE, file);
+        try (EnumerationExport.Reader reader = EnumerationExport.open(file)) {
+            assertEquals(EnumerationExport.Layout.ARRANGEMENT, reader.getLayout());
+            assertRoundTrip(arrangements, 0, arrangements.count(), reader);
+        }
+    }
+
+    @Test
+    void roundTripsAPageOfNQueensSolutions() throws IOException {
+        NQueensEnumeration queens = new NQueensEnumeration(8);
+        Path file = directory.resolve("queens.bin");
+        assertEquals(20, EnumerationExport.write(queens, 8, 50, 20, file));
+        try (EnumerationExport.Reader reader = EnumerationExport.open(file)) {
+            assertEquals(50, reader.getStartRank());
+            assertRoundTrip(queens, 50, 20, reader);
+        }
+    }
+
+    @Test
+    void roundTripsMultisetPermutations() throws IOException {
+        MultisetPermutationEnumeration arrangements = new MultisetPermutationEnumeration(List.of("a", "b", "a", "c", "b", "a"));
+        Path file = directory.resolve("multiset.bin");
+        EnumerationExport.write(arrangements, 6, 0, Long.MAX_VALUE, file);
+        try (EnumerationExport.Reader reader = EnumerationExport.open(file)) {
+            assertEquals(EnumerationExport.Layout.PERMUTATION, reader.getLayout());
+            assertRoundTrip(arrangements, 0, arrangements.count(), reader);
+        }
+    }
+
+    @Test
+    void roundTripsCombinationsInEveryOrder() throws IOException {
+        for (CombinationEnumeration.Order order : CombinationEnumeration.Order.values()) {
+            CombinationEnumeration combinations = new CombinationEnumeration(10, 4, order);
+            Path file = directory.resolve("combinations-" + order + ".bin");
+            assertEquals(210, EnumerationExport.write(combinations, 10, 0, Long.MAX_VALUE, file));
+            try (EnumerationExport.Reader reader = EnumerationExport.open(file)) {
+                assertEquals(EnumerationExport.Layout.BITMASK, reader.getLayout());
+                assertRoundTrip(combinations, 0, combinations.count(), reader);
+            }
+        }
+    }
+
+    @Test
+    void rejectsResultsWiderThanTheirRecords() {
+        // Permutations of 6 elements do not fit records sized for 4
+        PermutationEnumeration permutations = new PermutationEnumeration(6);
+        assertThrows(IllegalArgumentException.class,
+            () -> EnumerationExport.write(permutations, 4, 0, Long.MAX_VALUE, directory.resolve("narrow.bin")));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.write(file, new byte[EnumerationExport.HEADER_SIZE]);
+        assertThrows(IOException.class, () -> EnumerationExport.open(file));
+    }
+
+    /**
+     * Checks that the file holds exactly the results from rank offset on, both
+     * read at random and in file order.
+     */
+    static void assertRoundTrip(RankedEnumeration enumeration, long offset, long count,
+                                EnumerationExport.Reader reader) throws IOException {
+        List<int[]> expected = new ArrayList<>();
+        enumeration.forEach(offset, count, (rank, indices, length) -> expected.add(Arrays.copyOf(indices, length)));
+        assertEquals(expected.size(), reader.getCount());
+
+        int[] record = new int[Math.max(1, reader.getElementCount())];
+        for (int index = expected.size() - 1; index >= 0; index--) {
+            int length = reader.read(index, record);
+            assertArrayEquals(expected.get(index), Arrays.copyOf(record, length), "record " + index);
+        }
+        List<int[]> read = new ArrayList<>();
+        reader.forEach((rank, indices, length) -> {
+            assertEquals(offset + read.size(), rank);
+            read.add(Arrays.copyOf(indices, length));
+        });
+        assertEquals(expected.size(), read.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.read(expected.size(), record));
+    }
+}
@@ -0,0 +1,84 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MeetInTheMiddleTest {
+    @Test
+    void matchesBruteForceSubsetSums() {
+        Random random = new Random(11);
+        for (int n = 0; n <= 15; n++) {
+            long[] weights = SubsetSearchTest.randomWeights(random, n, 20);
+            long[] counts = new long[20 * n + 1];
+            for (long mask = 0; mask < 1L << n; mask++) {
+                counts[(int) SubsetSearchTest.total(weights, mask)]++;
+            }
+
+            MeetInTheMiddle engine = new MeetInTheMiddle(weights);
+            assertEquals(n, engine.getElementCount());
+            for (int target = -1; target <= counts.length; target++) {
+                long expected = target >= 0 && target < counts.length ? counts[target] : 0;
+                assertEquals(expected, engine.count(target), "n = " + n + ", target = " + target);
+                assertEquals(expected > 0, engine.exists(target));
+            }
+        }
+    }
+
+    @Test
+    void agreesWithTheTreeSearch() {
+        Random random = new Random(5);
+        long[] weights = SubsetSearchTest.randomWeights(random, 24, 1_000);
+        long[] remaining = SubsetSearch.suffixSums(weights);
+        long target = remaining[0] / 2;
+        long walked = new SubsetSearch(weights, null)
+            .feasibleWhen((depth, weight, value) -> weight <= target && weight + remaining[depth] >= target)
+            .acceptWhen((depth, weight, value) -> weight == target)
+            .countSolutions();
+        assertEquals(walked, new MeetInTheMiddle(weights).count(target));
+    }
+
+    @Test
+    void findsTheClosestSubset() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 20; trial++) {
+            long[] weights = SubsetSearchTest.randomWeights(random, 13, 1_000);
+            long target = random.nextInt(7_000);
+            long bestSum = 0;
+            for (long mask = 0; mask < 1L << weights.length; mask++) {
+                long sum = SubsetSearchTest.total(weights, mask);
+                long distance = Math.abs(sum - target);
+                long bestDistance = Math.abs(bestSum - target);
+                if (distance < bestDistance || (distance == bestDistance && sum < bestSum)) {
+                    bestSum = sum;
+                }
+            }
+
+            MeetInTheMiddle.Solution closest = new MeetInTheMiddle(weights).closest(target);
+            assertEquals(bestSum, closest.sum(), "target " + target);
+            assertEquals(closest.sum(), SubsetSearchTest.total(weights, closest.mask()));
+        }
+    }
+
+    @Test
+    void findsExactSubsetsOfTreeElements() {
+        MeetInTheMiddle engine = new MeetInTheMiddle(List.of(3, 34, 4, 12, 5, 2));
+        assertTrue(engine.exists(9));
+        assertFalse(engine.exists(30));
+        // 3 + 4 + 2 and 4 + 5 both hit 9
+        MeetInTheMiddle.Solution solution = engine.closest(9);
+        assertEquals(9, solution.sum());
+        assertTrue(solution.mask() == 0b100101 || solution.mask() == 0b010100);
+    }
+
+    @Test
+    void rejectsListsTooLongToSplit() {
+        assertThrows(IllegalArgumentException.class, () -> new MeetInTheMiddle(new long[MeetInTheMiddle.MAX_ELEMENTS + 1]));
+    }
+}
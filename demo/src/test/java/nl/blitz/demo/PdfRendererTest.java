@@ -0,0 +1,117 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+
+class PdfRendererTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void preparesPagesOnManyThreadsAtOnce() throws Exception {
+        int pageCount = 200;
+        List<byte[]> sequential = contents(render(pageCount, 1));
+        byte[] pdf = render(pageCount, THREADS);
+        List<byte[]> concurrent = contents(pdf);
+        assertEquals(pageCount, concurrent.size());
+        for (int i = 0; i < pageCount; i++) {
+            assertArrayEquals(sequential.get(i), concurrent.get(i), "page " + i);
+        }
+        // Every page keeps the font its text refers to
+        try (PDDocument document = PDDocument.load(pdf)) {
+            for (PDPage page : document.getPages()) {
+                assertTrue(page.getResources().getFontNames().iterator().hasNext());
+            }
+        }
+    }
+
+    @Test
+    void drawsNQueensBooksInParallel() throws Exception {
+        // 724 solutions fill well over the pages needed to draw in parallel
+        NQueensSubsetTree tree = new NQueensSubsetTree(10);
+        List<byte[]> sequential = contents(drawBook(tree, 1));
+        List<byte[]> concurrent = contents(drawBook(tree, THREADS));
+        assertTrue(concurrent.size() >= 32);
+        assertEquals(sequential.size(), concurrent.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertArrayEquals(sequential.get(i), concurrent.get(i), "page " + i);
+        }
+    }
+
+    /**
+     * Prepares numbered pages with shapes and text on a pool of the given
+     * size, adds them in order and returns the saved document.
+     */
+    private static byte[] render(int pageCount, int threads) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            List<PdfRenderer.PreparedPage> pages = pool.submit(() -> IntStream.range(0, pageCount).parallel()
+                .mapToObj(page -> {
+                    RenderBatch batch = new RenderBatch(12f);
+                    for (int i = 0; i < 50; i++) {
+                        batch.strokeLine(new float[] {0f, 0.5f, 0f}, 1f, i, page, i + 10, page + 10);
+                        batch.strokeCircle(new float[] {0.8f, 0f, 0f}, 1.5f, 100 + i, 200, 15);
+                        batch.showText("page " + page + " line " + i, 20, 20 + 12 * i);
+                    }
+                    try {
+                        return renderer.preparePage(300, 700, batch);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .toList()).get();
+            assertEquals(0, renderer.getDocument().getNumberOfPages());
+            for (PdfRenderer.PreparedPage page : pages) {
+                renderer.addPage(page);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            renderer.save(out);
+            return out.toByteArray();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] drawBook(NQueensSubsetTree tree, int threads) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            pool.submit(() -> {
+                tree.renderSolutions(renderer);
+                return null;
+            }).get();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            renderer.save(out);
+            return out.toByteArray();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads back the decoded content stream of every page.
+     */
+    private static List<byte[]> contents(byte[] pdf) throws IOException {
+        List<byte[]> pages = new ArrayList<>();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            for (PDPage page : document.getPages()) {
+                try (InputStream in = page.getContents()) {
+                    pages.add(in.readAllBytes());
+                }
+            }
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,261 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+class RankedEnumerationTest {
+    // Number of N-Queens solutions for n = 1..10 (OEIS A000170)
+    private static final long[] N_QUEENS_COUNTS = {1, 0, 0, 2, 10, 4, 40, 92, 352, 724};
+    // Number of arrangements of any subset of n elements for n = 0..6 (OEIS A000522)
+    private static final long[] ARRANGEMENT_COUNTS = {1, 2, 5, 16, 65, 326, 1957};
+
+    @Test
+    void ranksSubsets() throws IOException {
+        for (int n = 0; n <= 10; n++) {
+            SubsetEnumeration subsets = new SubsetEnumeration(n);
+            assertEquals(1L << n, subsets.count());
+            List<int[]> results = checkEnumeration(subsets);
+            int[] indices = new int[subsets.getMaxLength()];
+            for (long rank = 0; rank < subsets.count(); rank++) {
+                int length = subsets.unrank(rank, indices);
+                assertEquals(rank, subsets.rank(indices, length));
+            }
+            assertEquals(results.size(), distinct(results).size());
+        }
+    }
+
+    @Test
+    void ranksPermutationsInLexicographicOrder() throws IOException {
+        long factorial = 1;
+        for (int n = 1; n <= 7; n++) {
+            factorial *= n;
+            PermutationEnumeration permutations = new PermutationEnumeration(n);
+            assertEquals(factorial, permutations.count());
+            List<int[]> results = checkEnumeration(permutations);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, permutations.rank(results.get(i)));
+                if (i > 0) {
+                    assertTrue(Arrays.compare(results.get(i - 1), results.get(i)) < 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void ranksSubsetArrangements() throws IOException {
+        for (int n = 0; n < ARRANGEMENT_COUNTS.length; n++) {
+            SubsetPermutationEnumeration arrangements = new SubsetPermutationEnumeration(n);
+            assertEquals(ARRANGEMENT_COUNTS[n], arrangements.count());
+            List<int[]> results = checkEnumeration(arrangements);
+            assertEquals(results.size(), distinct(results).size());
+        }
+    }
+
+    @Test
+    void listsNQueensSolutionsInLexicographicOrder() throws IOException {
+        for (int n = 1; n <= N_QUEENS_COUNTS.length; n++) {
+            NQueensEnumeration queens = new NQueensEnumeration(n);
+            assertEquals(N_QUEENS_COUNTS[n - 1], queens.count(), "n = " + n);
+            List<int[]> results = checkEnumeration(queens);
+            for (int i = 1; i < results.size(); i++) {
+                assertTrue(Arrays.compare(results.get(i - 1), results.get(i)) < 0);
+            }
+        }
+    }
+
+    @Test
+    void ranksMultisetPermutationsWithoutDuplicates() throws IOException {
+        // 5!/(2!·2!·1!) arrangements of a, a, b, b, c
+        List<String> elements = List.of("a", "b", "a", "c", "b");
+        MultisetPermutationEnumeration arrangements = new MultisetPermutationEnumeration(elements);
+        assertEquals(30, arrangements.count());
+        assertEquals(3, arrangements.getDistinctCount());
+        List<int[]> results = checkEnumeration(arrangements);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, arrangements.rank(results.get(i)));
+            if (i > 0) {
+                assertTrue(Arrays.compare(results.get(i - 1), results.get(i)) < 0);
+            }
+            // Each distinct element is given by the index of its first occurrence
+            int[] counts = new int[elements.size()];
+            for (int index : results.get(i)) {
+                counts[index]++;
+            }
+            assertArrayEquals(new int[] {2, 2, 0, 1, 0}, counts);
+        }
+        assertEquals(results.size(), distinct(results).size());
+        assertEquals(30, new PermutationTree<>(elements, true).getPermutationCount());
+    }
+
+    @Test
+    void ranksMultisetPermutationsOfDistinctElementsLikePermutations() throws IOException {
+        MultisetPermutationEnumeration arrangements = new MultisetPermutationEnumeration(List.of(1, 2, 3, 4, 5));
+        List<int[]> results = checkEnumeration(arrangements);
+        List<int[]> permutations = checkEnumeration(new PermutationEnumeration(5));
+        assertEquals(permutations.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertArrayEquals(permutations.get(i), results.get(i));
+        }
+    }
+
+    @Test
+    void rejectsMultisetsWithTooManyArrangements() {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            elements.add(i % 20);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MultisetPermutationEnumeration(elements));
+    }
+
+    @Test
+    void ranksCombinationsInEveryOrder() throws IOException {
+        for (CombinationEnumeration.Order order : CombinationEnumeration.Order.values()) {
+            for (int n = 0; n <= 9; n++) {
+                for (int k = 0; k <= n; k++) {
+                    CombinationEnumeration combinations = new CombinationEnumeration(n, k, order);
+                    assertEquals(binomial(n, k), combinations.count(), order + " C(" + n + ", " + k + ")");
+                    List<int[]> results = checkEnumeration(combinations);
+                    assertEquals(results.size(), distinct(results).size());
+                    for (int rank = 0; rank < results.size(); rank++) {
+                        int[] combination = results.get(rank);
+                        assertEquals(k, combination.length);
+                        for (int i = 1; i < k; i++) {
+                            assertTrue(combination[i - 1] < combination[i]);
+                        }
+                        assertEquals(rank, combinations.rank(combination));
+                        long mask = CombinationEnumeration.toMask(combination, k);
+                        assertEquals(mask, combinations.unrankMask(rank));
+                        assertEquals(rank, combinations.rankMask(mask));
+                        if (rank > 0) {
+                            assertInOrder(order, results.get(rank - 1), combination);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void listsEveryCombinationOnceInParallel() {
+        CombinationEnumeration combinations = new CombinationEnumeration(20, 6, CombinationEnumeration.Order.REVOLVING_DOOR);
+        Set<Long> masks = ConcurrentHashMap.newKeySet();
+        combinations.forEachParallel((rank, indices, length) -> {
+            assertEquals(combinations.unrankMask(rank), CombinationEnumeration.toMask(indices, length));
+            masks.add(CombinationEnumeration.toMask(indices, length));
+        });
+        assertEquals(38760, masks.size());
+    }
+
+    @Test
+    void binomialsMatchPascalsTriangle() {
+        assertEquals(1, CombinationEnumeration.binomial(64, 0));
+        assertEquals(1832624140942590534L, CombinationEnumeration.binomial(64, 32));
+        assertEquals(0, CombinationEnumeration.binomial(5, 6));
+        for (int n = 1; n <= 64; n++) {
+            for (int k = 1; k < n; k++) {
+                assertEquals(CombinationEnumeration.binomial(n - 1, k - 1) + CombinationEnumeration.binomial(n - 1, k),
+                    CombinationEnumeration.binomial(n, k));
+            }
+        }
+    }
+
+    @Test
+    void rejectsRanksOutsideTheEnumeration() {
+        SubsetEnumeration subsets = new SubsetEnumeration(3);
+        int[] indices = new int[subsets.getMaxLength()];
+        assertThrows(IndexOutOfBoundsException.class, () -> subsets.unrank(8, indices));
+        assertThrows(IndexOutOfBoundsException.class, () -> subsets.unrank(-1, indices));
+    }
+
+    /**
+     * Checks that stepping with successor and seeking with forEach both agree
+     * with unrank at every rank, and returns the results in rank order.
+     */
+    static List<int[]> checkEnumeration(RankedEnumeration enumeration) throws IOException {
+        List<int[]> unranked = new ArrayList<>();
+        int[] indices = new int[Math.max(1, enumeration.getMaxLength())];
+        for (long rank = 0; rank < enumeration.count(); rank++) {
+            int length = enumeration.unrank(rank, indices);
+            unranked.add(Arrays.copyOf(indices, length));
+        }
+
+        // Successor from each rank gives the next unranked result
+        int[] stepped = new int[indices.length];
+        for (int rank = 0; rank + 1 < unranked.size(); rank++) {
+            int[] current = unranked.get(rank);
+            System.arraycopy(current, 0, stepped, 0, current.length);
+            int length = enumeration.successor(rank, stepped, current.length);
+            assertArrayEquals(unranked.get(rank + 1), Arrays.copyOf(stepped, length), "successor of rank " + rank);
+        }
+
+        // forEach from the start and from the middle, with a limit
+        List<int[]> iterated = collect(enumeration, 0, Long.MAX_VALUE);
+        assertEquals(unranked.size(), iterated.size());
+        for (int rank = 0; rank < unranked.size(); rank++) {
+            assertArrayEquals(unranked.get(rank), iterated.get(rank), "forEach at rank " + rank);
+        }
+        int middle = unranked.size() / 2;
+        List<int[]> page = collect(enumeration, middle, 3);
+        assertEquals(Math.min(3, unranked.size() - middle), page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertArrayEquals(unranked.get(middle + i), page.get(i), "page at rank " + (middle + i));
+        }
+        return unranked;
+    }
+
+    private static List<int[]> collect(RankedEnumeration enumeration, long offset, long limit) throws IOException {
+        List<int[]> results = new ArrayList<>();
+        long[] expectedRank = {offset};
+        enumeration.forEach(offset, limit, (rank, indices, length) -> {
+            assertEquals(expectedRank[0]++, rank);
+            results.add(Arrays.copyOf(indices, length));
+        });
+        return results;
+    }
+
+    /**
+     * Checks the defining property of each combination order between two
+     * consecutive results.
+     */
+    private static void assertInOrder(CombinationEnumeration.Order order, int[] previous, int[] next) {
+        switch (order) {
+            case LEXICOGRAPHIC -> assertTrue(Arrays.compare(previous, next) < 0);
+            case COLEX -> assertTrue(CombinationEnumeration.toMask(previous, previous.length)
+                < CombinationEnumeration.toMask(next, next.length));
+            case REVOLVING_DOOR -> {
+                // One element leaves and one enters
+                long changed = CombinationEnumeration.toMask(previous, previous.length)
+                    ^ CombinationEnumeration.toMask(next, next.length);
+                assertEquals(2, Long.bitCount(changed));
+            }
+        }
+    }
+
+    private static long binomial(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    static Set<List<Integer>> distinct(List<int[]> results) {
+        Set<List<Integer>> set = new HashSet<>();
+        for (int[] result : results) {
+            set.add(Arrays.stream(result).boxed().toList());
+        }
+        return set;
+    }
+}
@@ -0,0 +1,130 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+class SubsetSearchTest {
+    @Test
+    void findsEverySubsetWithoutConditions() {
+        SubsetSearch search = new SubsetSearch(List.of(3, 1, 4, 1, 5));
+        assertEquals(32, search.countSolutions());
+        assertEquals(63, search.getStatistics().nodesVisited());
+        assertEquals(63, search.getStatistics().fullTreeNodes());
+        assertEquals(32, search.countSolutionsParallel());
+
+        // Tree order: exclude before include, element 0 decided first
+        List<Long> masks = new ArrayList<>();
+        search.forEachSolution(masks::add);
+        assertEquals(32, masks.size());
+        for (int i = 0; i < masks.size(); i++) {
+            assertEquals(Integer.reverse(i) >>> 27, masks.get(i));
+        }
+    }
+
+    @Test
+    void matchesBruteForceSubsetSums() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 20; trial++) {
+            long[] weights = randomWeights(random, 14, 30);
+            long target = random.nextLong(Math.max(1, sum(weights)));
+            long[] remaining = SubsetSearch.suffixSums(weights);
+            SubsetSearch search = new SubsetSearch(weights, null)
+                .feasibleWhen((depth, weight, value) -> weight <= target && weight + remaining[depth] >= target)
+                .acceptWhen((depth, weight, value) -> weight == target);
+
+            Set<Long> expected = new HashSet<>();
+            for (long mask = 0; mask < 1L << weights.length; mask++) {
+                if (total(weights, mask) == target) {
+                    expected.add(mask);
+                }
+            }
+
+            List<Long> found = new ArrayList<>();
+            search.forEachSolution(found::add);
+            assertEquals(expected.size(), found.size(), "target " + target);
+            assertEquals(expected, Set.copyOf(found));
+            assertTrue(search.getStatistics().nodesVisited() <= search.getStatistics().fullTreeNodes());
+
+            Set<Long> parallel = ConcurrentHashMap.newKeySet();
+            search.forEachSolutionParallel(parallel::add);
+            assertEquals(expected, parallel);
+            assertEquals(expected.size(), search.countSolutionsParallel());
+        }
+    }
+
+    @Test
+    void maximizesKnapsackValue() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 20; trial++) {
+            long[] weights = randomWeights(random, 14, 20);
+            long[] values = randomWeights(random, 14, 50);
+            long capacity = sum(weights) / 3;
+            long[] remainingValue = SubsetSearch.suffixSums(values);
+
+            long bestValue = Long.MIN_VALUE;
+            for (long mask = 0; mask < 1L << weights.length; mask++) {
+                if (total(weights, mask) <= capacity) {
+                    bestValue = Math.max(bestValue, total(values, mask));
+                }
+            }
+
+            SubsetSearch search = new SubsetSearch(weights, values)
+                .feasibleWhen((depth, weight, value) -> weight <= capacity)
+                .boundedBy((depth, weight, value) -> value + remainingValue[depth]);
+            for (SubsetSearch.Solution solution : List.of(search.maximize(), search.maximizeParallel())) {
+                assertEquals(bestValue, solution.value());
+                assertEquals(total(values, solution.mask()), solution.value());
+                assertEquals(total(weights, solution.mask()), solution.weight());
+                assertTrue(solution.weight() <= capacity);
+            }
+        }
+    }
+
+    @Test
+    void reportsNoSolutionWhenNothingIsAccepted() {
+        SubsetSearch search = new SubsetSearch(List.of(2, 4, 6))
+            .acceptWhen((depth, weight, value) -> weight % 2 == 1);
+        assertEquals(0, search.countSolutions());
+        assertNull(search.maximize());
+        assertNull(search.maximizeParallel());
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new SubsetSearch(new long[65], null));
+        assertThrows(IllegalArgumentException.class, () -> new SubsetSearch(new long[3], new long[2]));
+    }
+
+    static long[] randomWeights(Random random, int count, int bound) {
+        long[] weights = new long[count];
+        for (int i = 0; i < count; i++) {
+            weights[i] = 1 + random.nextInt(bound);
+        }
+        return weights;
+    }
+
+    static long total(long[] amounts, long mask) {
+        long total = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            if ((mask & (1L << i)) != 0) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+
+    private static long sum(long[] amounts) {
+        return total(amounts, -1L);
+    }
+}
@@ -0,0 +1,87 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.junit.jupiter.api.Test;
+
+class SubsetTreeRenderTest {
+    @Test
+    void rendersTheSameLayoutEveryTime() throws IOException {
+        // Eight elements are wider than the page, so the spacing is scaled down
+        SubsetTree tree = new SubsetTree(List.of(1, 2, 3, 4, 5, 6, 7, 8));
+        String first = render(tree, LevelOfDetail.FULL);
+        assertEquals(first, render(tree, LevelOfDetail.FULL));
+        assertEquals(first, render(tree, LevelOfDetail.FULL));
+    }
+
+    @Test
+    void drawsLabelsBlackAfterCollapsedSubtrees() throws IOException {
+        // The summary wedges are filled grey; the labels after them must not pick that up
+        SubsetTree tree = new SubsetTree(List.of(1, 2, 3, 4, 5, 6));
+        try (PdfRenderer renderer = new PdfRenderer()) {
+            tree.renderTree(renderer, LevelOfDetail.depth(2));
+            PDFStreamParser parser = new PDFStreamParser(renderer.getDocument().getPage(0));
+            parser.parse();
+
+            List<Object> operands = new ArrayList<>();
+            float[] fill = {0f, 0f, 0f};
+            int labels = 0;
+            int greyFills = 0;
+            for (Object token : parser.getTokens()) {
+                if (!(token instanceof Operator operator)) {
+                    operands.add(token);
+                    continue;
+                }
+                switch (operator.getName()) {
+                    case "rg" -> {
+                        for (int i = 0; i < 3; i++) {
+                            fill[i] = ((COSNumber) operands.get(i)).floatValue();
+                        }
+                    }
+                    case "f" -> greyFills += fill[0] > 0 ? 1 : 0;
+                    case "Tj" -> {
+                        assertArrayEquals(new float[] {0f, 0f, 0f}, fill, "label " + operands);
+                        labels++;
+                    }
+                    default -> { }
+                }
+                operands.clear();
+            }
+            assertTrue(greyFills > 0, "no subtree was collapsed");
+            assertTrue(labels > 0);
+        }
+    }
+
+    @Test
+    void drawsTheReverseLayoutFromTheElementsAlone() throws IOException {
+        List<Integer> elements = List.of(1, 2, 3, 4, 5);
+        StringWriter fromTree = new StringWriter();
+        new SubsetTree(elements).renderReverseTree(new SvgRenderer(fromTree));
+        StringWriter fromElements = new StringWriter();
+        SubsetTree.renderReverseTree(elements, new SvgRenderer(fromElements));
+        assertEquals(fromTree.toString(), fromElements.toString());
+
+        // One label per node, down to the 2^12 subsets
+        StringWriter large = new StringWriter();
+        SubsetTree.renderReverseTree(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), new SvgRenderer(large));
+        String svg = large.toString();
+        assertTrue(svg.contains(">{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}</text>"));
+        assertEquals(SubsetTree.nodeCount(12), svg.split("<text ", -1).length - 1);
+    }
+
+    private static String render(SubsetTree tree, LevelOfDetail detail) throws IOException {
+        StringWriter out = new StringWriter();
+        tree.renderTree(new SvgRenderer(out), detail);
+        return out.toString();
+    }
+}
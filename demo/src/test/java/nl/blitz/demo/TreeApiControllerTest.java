@@ -0,0 +1,42 @@
+package nl.blitz.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class TreeApiControllerTest {
+    @Test
+    void resolvesElementsFromSizeOrList() {
+        assertEquals(List.of(1, 2, 3), TreeApiController.resolveElements(TreeApiController.Family.SUBSET, null, 3));
+        assertEquals(List.of("a", "b"),
+            TreeApiController.resolveElements(TreeApiController.Family.PERMUTATION, List.of("a", "b"), null));
+        assertEquals(List.of(0, 1, 2, 3), TreeApiController.resolveElements(TreeApiController.Family.N_QUEENS, null, 4));
+    }
+
+    @Test
+    void rejectsHugeSizesBeforeBuildingTheList() {
+        for (TreeApiController.Family family : TreeApiController.Family.values()) {
+            ResponseStatusException refused = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> assertThrows(ResponseStatusException.class,
+                    () -> TreeApiController.resolveElements(family, null, Integer.MAX_VALUE)));
+            assertEquals(HttpStatus.BAD_REQUEST, refused.getStatusCode(), family.name());
+        }
+    }
+
+    @Test
+    void rejectsMissingOrRepeatedElements() {
+        assertThrows(ResponseStatusException.class,
+            () -> TreeApiController.resolveElements(TreeApiController.Family.SUBSET, null, null));
+        assertThrows(ResponseStatusException.class,
+            () -> TreeApiController.resolveElements(TreeApiController.Family.SUBSET, null, -1));
+        assertThrows(ResponseStatusException.class,
+            () -> TreeApiController.resolveElements(TreeApiController.Family.SUBSET, List.of("a", "a"), null));
+    }
+}